@@ -0,0 +1,46 @@
+// Comparaison variante servlet / variante réactive (profil Maven reactive) sur /auth/refresh-token
+// Chaque VU fait tourner sa propre session : comptes USERS, EMAIL_PATTERN avec {n} remplacé par 1..USERS (au moins autant que de VUs).
+// Sessions ouvertes sur la variante servlet (LOGIN_URL), les deux variantes partagent la base.
+// Lancer avec app.ratelimit.requests.enabled=false, puis :
+// k6 run -e EMAIL_PATTERN=user{n}@test.fr -e PASSWORD=... -e USERS=64 -e BASE_URL=http://localhost:8081/api/v1 loadtest/refresh-token.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api/v1';
+const LOGIN_URL = __ENV.LOGIN_URL || 'http://localhost:8080/api/v1';
+const USERS = Number(__ENV.USERS || 64);
+
+export const options = {
+  scenarios: {
+    refresh: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || USERS),
+      duration: __ENV.DURATION || '1m',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  const cookies = [];
+  for (let n = 1; n <= USERS; n++) {
+    const res = http.post(`${LOGIN_URL}/auth/login`,
+      JSON.stringify({ email: __ENV.EMAIL_PATTERN.replace('{n}', n), password: __ENV.PASSWORD }),
+      { headers: { 'Content-Type': 'application/json' } });
+    cookies.push(res.cookies.refreshToken[0].value);
+  }
+  return { cookies };
+}
+
+// Refresh token courant de la session du VU, remplacé à chaque rotation
+let refreshToken;
+
+export default function (data) {
+  refreshToken = refreshToken || data.cookies[(__VU - 1) % USERS];
+  const res = http.get(`${BASE_URL}/auth/refresh-token`, {
+    cookies: { refreshToken: { value: refreshToken, replace: true } }, // prioritaire sur le cookie jar du VU
+  });
+  check(res, { 'status 200': (r) => r.status === 200 });
+  if (res.cookies.refreshToken)
+    refreshToken = res.cookies.refreshToken[0].value;
+}
@@ -0,0 +1,34 @@
+// Comparaison threads plateforme / threads virtuels sur /validate-token
+// Lancer sajauth deux fois (sans profil puis avec --spring.profiles.active=virtual) avec
+// app.ratelimit.requests.enabled=false, puis : k6 run -e EMAIL=... -e PASSWORD=... loadtest/validate-token.js
+// Variante réactive (sans route de connexion) : -e BASE_URL=http://localhost:8081/api/v1 -e LOGIN_URL=http://localhost:8080/api/v1
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api/v1';
+const LOGIN_URL = __ENV.LOGIN_URL || BASE_URL;
+
+export const options = {
+  scenarios: {
+    validate: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 2000),
+      duration: __ENV.DURATION || '1m',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  const res = http.post(`${LOGIN_URL}/auth/login`,
+    JSON.stringify({ email: __ENV.EMAIL, password: __ENV.PASSWORD }),
+    { headers: { 'Content-Type': 'application/json' } });
+  return { token: res.json('token') };
+}
+
+export default function (data) {
+  const res = http.get(`${BASE_URL}/validate-token`, {
+    headers: { Authorization: `Bearer ${data.token}` },
+  });
+  check(res, { 'status 200': (r) => r.status === 200 });
+}
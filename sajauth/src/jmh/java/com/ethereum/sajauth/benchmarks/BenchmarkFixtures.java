@@ -0,0 +1,110 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.datasource.ReplicaRouting;
+import com.ethereum.sajauth.entities.Role;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import com.ethereum.sajauth.services.UserAuthCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.security.KeyPair;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Objets construits sans contexte Spring ni base de données
+final class BenchmarkFixtures {
+
+    static final String SECRET_KEY = "d880a16d5fa96fad3f9c0ddb755d66bc1eff050899217bd91f35a2c25d8d14a9ae410ad5b3e1e6e8907cfbb586ed295250ac24d8b1511de871a6005ccd3875b0f2fd7cb47f28b8594b49b6b6c1e9f83a3ab1cc834f9dba05a0367a18fcb9be2a2d339ae5480cc1760787a5280062dbb87d4968a789c862745c7bdb2cfe364c8ba11c262771daa260268e76be72415f00aae31c274ab0a2c6bb13d1a93006a545c2d7adb5e4f723471ef867245a60c92f4f8eadff6405ff81d56233bf4b565c4fd92c4ee202b4a558ecf625c6fb73f7effc1336593b5bb9ac44553896d7b3b8b73f2ea903cfea782742a090847482cacae1eb63c302410a35ebac9563ec8e0609";
+    static final Long USER_ID = 1L;
+    static final String EMAIL = "bench@sajauth.fr";
+    // Hash BCrypt (coût 10) de "Password1!"
+    static final String PASSWORD_HASH = "$2a$10$5eLRmH0GGmyz/JWqHeDy4.GcPBu0tdjxWfYWrEGqUzgaLu6ujwXm.";
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user() {
+        Role role = new Role();
+        role.setId(1L);
+        role.setName("ROLE_USER");
+
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail(EMAIL);
+        user.setPassword(PASSWORD_HASH);
+        user.setEnabled(true);
+        user.setRole(role);
+        return user;
+    }
+
+    // Dépôt en mémoire : seules les recherches par email sont implémentées
+    static UserRepository inMemoryUserRepository(User... users) {
+        Map<String, User> byEmail = new ConcurrentHashMap<>();
+        for (User user : users)
+            byEmail.put(user.getEmail(), user);
+
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByEmail" -> Optional.ofNullable(byEmail.get((String) args[0]));
+                    case "findAuthStateByEmail" -> Optional.ofNullable(byEmail.get((String) args[0]))
+                            .map(user -> new UserAuthState(user.getId(), user.getEmail(), user.getPassword(), user.getRole().getName(), user.isEnabled()));
+                    case "findAuthStatesByEmailIn" -> ((Collection<?>) args[0]).stream()
+                            .map(byEmail::get)
+                            .filter(Objects::nonNull)
+                            .map(user -> new UserAuthState(user.getId(), user.getEmail(), user.getPassword(), user.getRole().getName(), user.isEnabled()))
+                            .toList();
+                    case "existsByEmail" -> byEmail.containsKey((String) args[0]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil(authMetrics());
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtUtil, "refreshDigestKey", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtUtil, "secretKeyFile", "");
+        ReflectionTestUtils.invokeMethod(jwtUtil, "initSigningKeys");
+
+        // Clé ES256 générée en mémoire, à la place de SigningKeyService
+        KeyPair keyPair = JwtUtil.SIGNING_ALGORITHM.keyPair().build();
+        jwtUtil.useSigningKeys(List.of(new JwtUtil.AsymmetricKey("bench", Instant.EPOCH, keyPair.getPrivate(), keyPair.getPublic())));
+        return jwtUtil;
+    }
+
+    static AuthMetrics authMetrics() {
+        return new AuthMetrics(new SimpleMeterRegistry());
+    }
+
+    // Sans réplica configuré : toutes les lectures restent sur le primaire
+    static ReplicaRouting replicaRouting() {
+        return new ReplicaRouting(authMetrics());
+    }
+
+    // Sans base : seules les révocations faites par revoke() sont connues
+    static TokenRevocationService tokenRevocationService(JwtUtil jwtUtil) {
+        TokenRevocationService service = new TokenRevocationService(null, jwtUtil);
+        ReflectionTestUtils.setField(service, "bloomBits", 65_536);
+        ReflectionTestUtils.invokeMethod(service, "createFilter");
+        return service;
+    }
+
+    static UserAuthCache userAuthCache() {
+        UserAuthCache cache = new UserAuthCache();
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 5L);
+        ReflectionTestUtils.setField(cache, "maxSize", 10_000);
+        return cache;
+    }
+}
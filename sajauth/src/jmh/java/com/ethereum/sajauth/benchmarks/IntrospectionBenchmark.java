@@ -0,0 +1,95 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.DTO.TokenIntrospectionResponse;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.services.TokenIntrospectionService;
+import com.ethereum.sajauth.services.UserAuthCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coût par token : lot de BATCH_SIZE tokens (POST /introspect) contre un appel par token (/validate-token),
+// état des comptes en cache ou relu à chaque fois. Dépôt en mémoire : le gain de l'aller-retour base n'est pas mesuré ici
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IntrospectionBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private JwtUtil jwtUtil;
+    private CustomUserDetailsService userDetailsService;
+    private TokenIntrospectionService tokenIntrospectionService;
+    private UserAuthCache userAuthCache;
+    private final List<String> emails = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkFixtures.jwtUtil();
+        userAuthCache = BenchmarkFixtures.userAuthCache();
+
+        User[] users = new User[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            users[i] = BenchmarkFixtures.user();
+            users[i].setId((long) i);
+            users[i].setEmail("bench" + i + "@sajauth.fr");
+            emails.add(users[i].getEmail());
+            tokens.add(jwtUtil.generateToken(users[i].getId(), users[i].getEmail(), JwtTokenEnum.ACCESS.getId()));
+        }
+
+        userDetailsService = new CustomUserDetailsService(BenchmarkFixtures.inMemoryUserRepository(users), userAuthCache,
+                BenchmarkFixtures.replicaRouting());
+        tokenIntrospectionService = new TokenIntrospectionService(jwtUtil, userDetailsService, BenchmarkFixtures.tokenRevocationService(jwtUtil));
+        ReflectionTestUtils.setField(tokenIntrospectionService, "maxBatchSize", BATCH_SIZE);
+        ReflectionTestUtils.invokeMethod(tokenIntrospectionService, "startExecutor");
+    }
+
+    @TearDown
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(tokenIntrospectionService, "stopExecutor");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<TokenIntrospectionResponse> batch() {
+        return tokenIntrospectionService.introspect(tokens);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<TokenIntrospectionResponse> batchUncached() {
+        emails.forEach(userAuthCache::invalidate);
+        return tokenIntrospectionService.introspect(tokens);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleTokens(Blackhole blackhole) {
+        for (String token : tokens)
+            blackhole.consume(validate(token));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleTokensUncached(Blackhole blackhole) {
+        emails.forEach(userAuthCache::invalidate);
+        for (String token : tokens)
+            blackhole.consume(validate(token));
+    }
+
+    // Même travail que JwtFilter pour /validate-token
+    private UserAuthState validate(String token) {
+        Claims claims = jwtUtil.extractClaims(token);
+        return userDetailsService.loadUserAuthState(claims.getSubject());
+    }
+}
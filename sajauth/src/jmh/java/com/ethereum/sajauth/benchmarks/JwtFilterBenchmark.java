@@ -0,0 +1,63 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.JwtFilter;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.ratelimit.RequestThrottler;
+import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.services.UserAuthCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Chemin complet d'une requête authentifiée (/validate-token) dans JwtFilter, utilisateurs en mémoire
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtFilterBenchmark {
+
+    private JwtFilter jwtFilter;
+    private UserAuthCache userAuthCache;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = BenchmarkFixtures.inMemoryUserRepository(BenchmarkFixtures.user());
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        userAuthCache = BenchmarkFixtures.userAuthCache();
+
+        RequestThrottler requestThrottler = new RequestThrottler(BenchmarkFixtures.authMetrics());
+        ReflectionTestUtils.setField(requestThrottler, "enabled", false);
+
+        jwtFilter = new JwtFilter(jwtUtil, new CustomUserDetailsService(userRepository, userAuthCache, BenchmarkFixtures.replicaRouting()), requestThrottler,
+                BenchmarkFixtures.tokenRevocationService(jwtUtil));
+        authorizationHeader = "Bearer " + jwtUtil.generateToken(BenchmarkFixtures.USER_ID, BenchmarkFixtures.EMAIL, JwtTokenEnum.ACCESS.getId());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse cachedUser() throws Exception {
+        return filter();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse uncachedUser() throws Exception {
+        userAuthCache.invalidate(BenchmarkFixtures.EMAIL);
+        return filter();
+    }
+
+    private MockHttpServletResponse filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/validate-token");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        jwtFilter.doFilter(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+}
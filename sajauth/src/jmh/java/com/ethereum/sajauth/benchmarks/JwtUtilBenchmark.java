@@ -0,0 +1,47 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String accessToken;
+    private String refreshToken;
+    private byte[] refreshTokenHash;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkFixtures.jwtUtil();
+        accessToken = jwtUtil.generateToken(BenchmarkFixtures.USER_ID, BenchmarkFixtures.EMAIL, JwtTokenEnum.ACCESS.getId());
+        refreshToken = jwtUtil.generateToken(BenchmarkFixtures.USER_ID, BenchmarkFixtures.EMAIL, JwtTokenEnum.REFRESH.getId());
+        refreshTokenHash = jwtUtil.hashRefreshToken(refreshToken);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(BenchmarkFixtures.USER_ID, BenchmarkFixtures.EMAIL, JwtTokenEnum.ACCESS.getId());
+    }
+
+    @Benchmark
+    public Claims extractClaims() {
+        return jwtUtil.extractClaims(accessToken);
+    }
+
+    @Benchmark
+    public byte[] hashRefreshToken() {
+        return jwtUtil.hashRefreshToken(refreshToken);
+    }
+
+    @Benchmark
+    public boolean validateRefreshTokenHash() {
+        return jwtUtil.validateRefreshTokenHash(refreshToken, refreshTokenHash);
+    }
+}
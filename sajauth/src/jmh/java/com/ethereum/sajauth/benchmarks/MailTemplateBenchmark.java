@@ -0,0 +1,41 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.enums.MailTypeEnum;
+import com.ethereum.sajauth.utils.MailTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Template précompilé comparé à l'ancien String.formatted sur le même contenu HTML
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MailTemplateBenchmark {
+
+    private MailTemplate template;
+    private String formatSource;
+    private final StringBuilder buffer = new StringBuilder(4096);
+
+    @Setup
+    public void setUp() throws IOException {
+        String source = new ClassPathResource("templates/mail/" + MailTypeEnum.MAIL_CONFIRMATION.getMailType().toLowerCase() + ".html")
+                .getContentAsString(StandardCharsets.UTF_8);
+        template = MailTemplate.compile(source, true, "username", "url");
+        formatSource = source.replace("{{username}}", "%s").replace("{{url}}", "%s");
+    }
+
+    @Benchmark
+    public String stringFormatted() {
+        return formatSource.formatted("jean", "http://localhost:3000/verify-email/0b7d6c1e-4f4e-4a53-9b0c-3b1f0f9e2a11");
+    }
+
+    @Benchmark
+    public String precompiledTemplate() {
+        buffer.setLength(0);
+        template.render(buffer, "jean", "http://localhost:3000/verify-email/0b7d6c1e-4f4e-4a53-9b0c-3b1f0f9e2a11");
+        return buffer.toString();
+    }
+}
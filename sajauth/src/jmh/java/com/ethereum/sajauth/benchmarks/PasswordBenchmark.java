@@ -0,0 +1,52 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.services.BoundedPasswordEncoder;
+import com.ethereum.sajauth.services.PasswordHashingExecutor;
+import com.ethereum.sajauth.services.PasswordService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordBenchmark {
+
+    @Param({"10", "12"})
+    private int strength;
+
+    private PasswordService directPasswordService;
+    private PasswordService boundedPasswordService;
+    private PasswordHashingExecutor hashingExecutor;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        directPasswordService = new PasswordService(bcrypt);
+
+        hashingExecutor = new PasswordHashingExecutor(BenchmarkFixtures.authMetrics());
+        ReflectionTestUtils.setField(hashingExecutor, "threads", 0);
+        ReflectionTestUtils.setField(hashingExecutor, "queueCapacity", 1024);
+        ReflectionTestUtils.setField(hashingExecutor, "timeoutMillis", 60_000L);
+        ReflectionTestUtils.invokeMethod(hashingExecutor, "startExecutor");
+        boundedPasswordService = new PasswordService(new BoundedPasswordEncoder(bcrypt, hashingExecutor));
+    }
+
+    @TearDown
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(hashingExecutor, "stopExecutor");
+    }
+
+    @Benchmark
+    public String encryptPasswordOnRequestThread() {
+        return directPasswordService.encryptPassword("Password1!");
+    }
+
+    // Surcoût du passage par le pool de hashage (file + changement de thread)
+    @Benchmark
+    public String encryptPasswordOnHashingPool() {
+        return boundedPasswordService.encryptPassword("Password1!");
+    }
+}
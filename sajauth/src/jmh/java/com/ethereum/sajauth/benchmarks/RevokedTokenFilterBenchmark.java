@@ -0,0 +1,48 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.revocation.RevokedTokenFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Test de révocation fait par JwtFilter à chaque requête, filtre rempli de revokedTokens jti sur 15 minutes.
+// Vérifier l'absence d'allocation avec -Djmh.args="-prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RevokedTokenFilterBenchmark {
+
+    private static final long ACCESS_LIFETIME_MILLIS = 15 * 60_000;
+
+    @Param({"1000", "100000"})
+    private int revokedTokens;
+
+    private RevokedTokenFilter filter;
+    private String activeJti;
+    private String revokedJti;
+    private long expiresAt;
+
+    @Setup
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        filter = new RevokedTokenFilter(7 * 24 * 3_600_000L, 65_536);
+        for (int i = 0; i < revokedTokens; i++)
+            filter.add(UUID.randomUUID().toString(), now + (i % 15) * 60_000 + ACCESS_LIFETIME_MILLIS / 15);
+
+        expiresAt = now + ACCESS_LIFETIME_MILLIS;
+        revokedJti = UUID.randomUUID().toString();
+        filter.add(revokedJti, expiresAt);
+        activeJti = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean activeToken() {
+        return filter.mightContain(activeJti, expiresAt);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return filter.mightContain(revokedJti, expiresAt);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ethereum.sajauth.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Temps base de données d'une rotation à la connexion (révocation + insertion) pour un utilisateur
+// ayant accumulé des sessions. H2 en mémoire par défaut (sans aller-retour réseau, donc favorable au
+// DELETE ligne par ligne). Sur PostgreSQL, ajouter à jmh.args :
+// -jvmArgsAppend "-Dbench.jdbc.url=jdbc:postgresql://localhost:5432/sajauth -Dbench.jdbc.user=... -Dbench.jdbc.password=..."
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenRevocationBenchmark {
+
+    private static final int OTHER_USERS = 2_000;
+    private static final int TOKENS_PER_OTHER_USER = 20;
+    private static final long USER_ID = 1L;
+
+    @Param({"1", "100", "1000"})
+    private int tokensPerUser;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Connection connection;
+    private long tokenSequence;
+
+    @Setup(Level.Trial)
+    public void createSchema() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:h2:mem:revocation;MODE=PostgreSQL"),
+                System.getProperty("bench.jdbc.user", "sa"),
+                System.getProperty("bench.jdbc.password", ""));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists bench_user_token");
+            statement.execute("create table bench_user_token (id bigint generated by default as identity primary key, " +
+                    "user_id bigint, refresh_token varchar(1024), token_hash bytea unique, " +
+                    "creation_date timestamp, expiration_date timestamp)");
+            if (indexed)
+                statement.execute("create index idx_bench_user_token_user_id on bench_user_token (user_id)");
+        }
+        for (long userId = 2; userId < 2 + OTHER_USERS; userId++)
+            insertTokens(userId, TOKENS_PER_OTHER_USER);
+    }
+
+    @Setup(Level.Invocation)
+    public void accumulateTokens() throws SQLException {
+        insertTokens(USER_ID, tokensPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table bench_user_token");
+        }
+        connection.close();
+    }
+
+    // Ancien deleteByUser dérivé : lecture des lignes puis un DELETE par ligne
+    @Benchmark
+    public int rowByRowRevocation() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement("select id from bench_user_token where user_id = ?")) {
+            select.setLong(1, USER_ID);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next())
+                    ids.add(resultSet.getLong(1));
+            }
+        }
+        try (PreparedStatement delete = connection.prepareStatement("delete from bench_user_token where id = ?")) {
+            for (Long id : ids) {
+                delete.setLong(1, id);
+                delete.executeUpdate();
+            }
+        }
+        insertTokens(USER_ID, 1);
+        return ids.size();
+    }
+
+    // UserTokenRepository.deleteAllByUserId : une seule requête
+    @Benchmark
+    public int bulkRevocation() throws SQLException {
+        int deleted;
+        try (PreparedStatement delete = connection.prepareStatement("delete from bench_user_token where user_id = ?")) {
+            delete.setLong(1, USER_ID);
+            deleted = delete.executeUpdate();
+        }
+        insertTokens(USER_ID, 1);
+        return deleted;
+    }
+
+    private void insertTokens(long userId, int count) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into bench_user_token (user_id, token_hash, creation_date, expiration_date) values (?, ?, current_timestamp, current_timestamp)")) {
+            for (int i = 0; i < count; i++) {
+                insert.setLong(1, userId);
+                insert.setBytes(2, tokenHash(tokenSequence++));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static byte[] tokenHash(long sequence) {
+        byte[] hash = new byte[32];
+        for (int i = 0; i < Long.BYTES; i++)
+            hash[i] = (byte) (sequence >>> (8 * i));
+        return hash;
+    }
+}
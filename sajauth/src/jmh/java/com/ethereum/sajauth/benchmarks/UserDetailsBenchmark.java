@@ -0,0 +1,35 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.services.UserAuthCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserDetailsBenchmark {
+
+    private CustomUserDetailsService userDetailsService;
+    private UserAuthCache userAuthCache;
+
+    @Setup
+    public void setUp() {
+        userAuthCache = BenchmarkFixtures.userAuthCache();
+        userDetailsService = new CustomUserDetailsService(
+                BenchmarkFixtures.inMemoryUserRepository(BenchmarkFixtures.user()), userAuthCache, BenchmarkFixtures.replicaRouting());
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameCached() {
+        return userDetailsService.loadUserByUsername(BenchmarkFixtures.EMAIL);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameUncached() {
+        userAuthCache.invalidate(BenchmarkFixtures.EMAIL);
+        return userDetailsService.loadUserByUsername(BenchmarkFixtures.EMAIL);
+    }
+}
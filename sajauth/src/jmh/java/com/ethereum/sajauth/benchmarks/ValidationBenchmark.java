@@ -0,0 +1,33 @@
+package com.ethereum.sajauth.benchmarks;
+
+import com.ethereum.sajauth.utils.ValidationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Regex de validation utilisées par AuthController (register, forgot-password)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+    private String email = "jean.dupont+wallet@example.com";
+    private String strongPassword = "Password1!";
+    // Cas le plus coûteux pour les lookaheads : long et rejeté
+    private String weakPassword = "passwordwithoutanydigitoruppercase_but_quite_long";
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return ValidationUtils.isValidEmail(email);
+    }
+
+    @Benchmark
+    public boolean isStrongPasswordAccepted() {
+        return ValidationUtils.isStrongPassword(strongPassword);
+    }
+
+    @Benchmark
+    public boolean isStrongPasswordRejected() {
+        return ValidationUtils.isStrongPassword(weakPassword);
+    }
+}
@@ -1,45 +1,111 @@
 package com.ethereum.sajauth;
-import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.datasource.ReplicaRouting;
 import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.services.UserAuthCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.*;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserAuthCache userAuthCache;
+    private final ReplicaRouting replicaRouting;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserAuthCache userAuthCache, ReplicaRouting replicaRouting) {
         this.userRepository = userRepository;
+        this.userAuthCache = userAuthCache;
+        this.replicaRouting = replicaRouting;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> {
-                    System.out.println("Email not found: " + email);
-                    return new UsernameNotFoundException("User not found with email: " + email);
-                });
-
-        String roleName = user.getRole() != null ? user.getRole().getName() : "ROLE_USER";
-
-        if (!roleName.startsWith("ROLE_")) {
-            roleName = "ROLE_" + roleName;
-        }
+        // Identifiants vérifiés sur le primaire, jamais sur le cache ni le réplica : un mot de passe changé ou un compte
+        // désactivé sur une autre instance est pris en compte dès la connexion suivante. Le cache est rafraîchi au passage
+        Optional<UserAuthState> found = replicaRouting.onPrimary(() -> userRepository.findAuthStateByEmail(email));
+        userAuthCache.put(email, found.map(CustomUserDetailsService::cacheable));
+        UserAuthState userState = found
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
+        // Nouvelle instance à chaque appel : Spring efface le mot de passe de l'objet après authentification
         return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                user.isEnabled(), // ajout de la vérification enabled
+                userState.getEmail(),
+                userState.getPassword(),
+                userState.isEnabled(), // ajout de la vérification enabled
                 true, // accountNonExpired
                 true, // credentialsNonExpired
                 true, // accountNonLocked
-                Collections.singletonList(new SimpleGrantedAuthority(roleName))
+                Collections.singletonList(new SimpleGrantedAuthority(roleName(userState.getRole())))
         );
     }
+
+    // Appelé à la connexion quand le hash ne correspond plus à l'algorithme ou au coût configuré
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.findByEmail(userDetails.getUsername()).ifPresent(user -> {
+            user.setPassword(newPassword);
+            userRepository.save(user);
+        });
+        userAuthCache.invalidate(userDetails.getUsername());
+        replicaRouting.markWritten(userDetails.getUsername());
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+
+    // Etat d'authentification (activation, rôle) servi depuis le cache, la base n'est lue qu'en cas d'absence ou d'expiration
+    public UserAuthState loadUserAuthState(String email) throws UsernameNotFoundException {
+        return userAuthCache.get(email, this::findUserState)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+    }
+
+    // Lecture seule (transaction du repository) : servie par le réplica s'il est configuré
+    private Optional<UserAuthState> findUserState(String email) {
+        return replicaRouting.readAccount(email, () -> userRepository.findAuthStateByEmail(email))
+                .map(CustomUserDetailsService::cacheable);
+    }
+
+    // Etats de plusieurs comptes : cache d'abord, puis une seule requête IN pour les emails manquants
+    public Map<String, UserAuthState> loadUserAuthStates(Collection<String> emails) {
+        return userAuthCache.getAll(emails, this::findUserStates);
+    }
+
+    private Map<String, UserAuthState> findUserStates(Collection<String> emails) {
+        Map<String, UserAuthState> states = new HashMap<>();
+        userRepository.findAuthStatesByEmailIn(emails).forEach(userState -> states.put(userState.getEmail(), userState));
+
+        // Comptes absents du réplica (inscription pas encore répliquée) : relus sur le primaire, comme readAccount
+        if (states.size() < emails.size() && replicaRouting.isEnabled()) {
+            List<String> missing = emails.stream().filter(email -> !states.containsKey(email)).toList();
+            replicaRouting.onPrimary(() -> userRepository.findAuthStatesByEmailIn(missing))
+                    .forEach(userState -> states.put(userState.getEmail(), userState));
+        }
+
+        states.replaceAll((email, userState) -> cacheable(userState));
+        return states;
+    }
+
+    // Etat gardé en cache : nom d'autorité résolu, sans le hash du mot de passe (seul loadUserByUsername le vérifie)
+    private static UserAuthState cacheable(UserAuthState userState) {
+        return new UserAuthState(userState.getUserId(), userState.getEmail(), null, roleName(userState.getRole()), userState.isEnabled());
+    }
+
+    // Nom d'autorité Spring Security, aussi utilisé par la lecture R2DBC de la variante réactive
+    public static String roleName(String roleName) {
+        if (roleName == null)
+            return "ROLE_USER";
+
+        if (!roleName.startsWith("ROLE_")) {
+            roleName = "ROLE_" + roleName;
+        }
+        return roleName;
+    }
 }
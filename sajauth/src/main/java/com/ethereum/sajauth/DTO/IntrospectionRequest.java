@@ -0,0 +1,10 @@
+package com.ethereum.sajauth.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class IntrospectionRequest {
+    private List<String> tokens;
+}
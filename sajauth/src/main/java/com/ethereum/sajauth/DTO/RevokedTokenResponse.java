@@ -0,0 +1,17 @@
+package com.ethereum.sajauth.DTO;
+
+import lombok.Data;
+
+// Entrée du flux /auth/revoked, dates en millisecondes
+@Data
+public class RevokedTokenResponse {
+    private String jti;
+    private long exp;
+    private long revokedAt;
+
+    public RevokedTokenResponse(String jti, long exp, long revokedAt) {
+        this.jti = jti;
+        this.exp = exp;
+        this.revokedAt = revokedAt;
+    }
+}
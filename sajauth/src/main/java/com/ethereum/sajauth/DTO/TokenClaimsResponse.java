@@ -0,0 +1,16 @@
+package com.ethereum.sajauth.DTO;
+
+import lombok.Data;
+
+@Data
+public class TokenClaimsResponse {
+    private Long userId;
+    private String email;
+    private String role;
+
+    public TokenClaimsResponse(Long userId, String email, String role) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+    }
+}
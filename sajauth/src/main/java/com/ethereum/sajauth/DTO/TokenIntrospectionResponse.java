@@ -0,0 +1,28 @@
+package com.ethereum.sajauth.DTO;
+
+import com.ethereum.sajauth.enums.TokenStatusEnum;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+// Claims renvoyés uniquement pour un token actif
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospectionResponse {
+    private TokenStatusEnum status;
+    private Long userId;
+    private String email;
+    private String role;
+    private Long exp;
+
+    public TokenIntrospectionResponse(TokenStatusEnum status) {
+        this.status = status;
+    }
+
+    public TokenIntrospectionResponse(UserAuthState userState, long exp) {
+        this.status = TokenStatusEnum.ACTIVE;
+        this.userId = userState.getUserId();
+        this.email = userState.getEmail();
+        this.role = userState.getRole();
+        this.exp = exp;
+    }
+}
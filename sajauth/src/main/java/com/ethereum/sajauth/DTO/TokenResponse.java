@@ -6,4 +6,5 @@ import lombok.Data;
 public class TokenResponse {
     private String accessToken;
     private String refreshToken;
+    private Long userId;
 }
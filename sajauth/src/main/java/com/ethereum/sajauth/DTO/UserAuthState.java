@@ -0,0 +1,22 @@
+package com.ethereum.sajauth.DTO;
+
+import lombok.Data;
+import lombok.ToString;
+
+@Data
+public class UserAuthState {
+    private Long userId;
+    private String email;
+    @ToString.Exclude
+    private String password;
+    private String role;
+    private boolean enabled;
+
+    public UserAuthState(Long userId, String email, String password, String role, boolean enabled) {
+        this.userId = userId;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ethereum.sajauth;
+
+import org.springframework.boot.DefaultPropertiesPropertySource;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.Map;
+
+// Valeurs par défaut, surchargeables dans application.properties (non versionné) et les profils.
+// Enregistré dans META-INF/spring.factories : appliqué aussi aux contextes de test et à la variante réactive
+public class DefaultPropertiesPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        DefaultPropertiesPropertySource.addOrMerge(Map.of(
+                "management.endpoints.web.exposure.include", "health,prometheus",
+                "management.metrics.tags.application", "sajauth",
+                // Cache de second niveau activé par le profil prod uniquement (régions déclarées dans ehcache.xml)
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache", "false",
+                // Bases déjà créées par ddl-auto=update : V1 est idempotente et s'applique par-dessus
+                "spring.flyway.baseline-on-migrate", "true",
+                "spring.flyway.baseline-version", "0"), environment.getPropertySources());
+    }
+}
@@ -4,47 +4,87 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.ratelimit.RequestThrottler;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final RequestThrottler requestThrottler;
+    private final TokenRevocationService tokenRevocationService;
 
-    public JwtFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, RequestThrottler requestThrottler,
+                     TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.requestThrottler = requestThrottler;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        // todo : mettre une limitation de requete
+
+        // Limitation de requête avant tout parsing de JWT ou accès base
+        long retryAfter = requestThrottler.check(request);
+        if (retryAfter > 0) {
+            tooManyRequests(response, retryAfter);
+            return;
+        }
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String jwt = authHeader.substring(7);
-            String email = jwtUtil.extractClaims(jwt).getSubject();
+            Claims claims = jwtUtil.extractClaims(jwt); // Token parsé une seule fois par requête
+            String email = claims.getSubject();
+
+            // Limite par compte, sur le sujet d'un token dont la signature vient d'être vérifiée
+            retryAfter = requestThrottler.checkAccount(request.getRequestURI(), email);
+            if (retryAfter > 0) {
+                tooManyRequests(response, retryAfter);
+                return;
+            }
+
+            // Filtre de Bloom en mémoire : pas de requête pour un token non révoqué
+            if (tokenRevocationService.isRevoked(claims)) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Token révoqué");
+                return;
+            }
+
+            if (!jwtUtil.isAccessToken(claims)) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Token d'accès requis");
+                return;
+            }
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                // Etat du compte lu depuis le cache : pas de requête en base à chaque appel
+                UserAuthState userState = userDetailsService.loadUserAuthState(email);
 
-                if (!userDetails.isEnabled()) {
+                if (!userState.isEnabled()) {
                     response.setStatus(HttpServletResponse.SC_FORBIDDEN);
                     response.getWriter().write("Compte non activé");
                     return;
                 }
 
-                if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                if (jwtUtil.validateToken(claims, userState.getEmail())) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userState, null, Collections.singletonList(new SimpleGrantedAuthority(userState.getRole())));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
@@ -52,4 +92,10 @@ public class JwtFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void tooManyRequests(HttpServletResponse response, long retryAfter) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.getWriter().write("Trop de requêtes, veuillez réessayer plus tard");
+    }
+
 }
@@ -1,89 +1,295 @@
 package com.ethereum.sajauth;
 
-import com.ethereum.sajauth.entities.User;
 import com.ethereum.sajauth.enums.JwtTokenEnum;
-import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.metrics.AuthMetrics;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.MacAlgorithm;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
 import java.security.MessageDigest;
-import java.util.Base64;
-import java.util.Date;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtil {
-    private final UserRepository userRepository;
+    private final AuthMetrics authMetrics;
     @Value("${jwt.secret.key}")
     private String SECRET_KEY;
 
-    private final SignatureAlgorithm sa = SignatureAlgorithm.HS256;
+    // Fichier optionnel contenant la clé HMAC (base64), relu périodiquement pour une rotation sans redémarrage.
+    // Héritage HS256 : cette clé ne signe plus rien (ES256, SigningKeyService), elle ne sert qu'à vérifier les anciens
+    // tokens jusqu'à jwt.legacy-hs256.accepted-until. A supprimer avec le chemin HS256
+    @Value("${jwt.secret.key-file:}")
+    private String secretKeyFile;
+
+    // Clé HMAC des empreintes de refresh token, indépendante de la clé de signature pour survivre à sa rotation
+    @Value("${jwt.refresh.digest.key:${jwt.secret.key}}")
+    private String refreshDigestKey;
+
+    // Clé des anciennes empreintes (JWT HS256) : celle en place avant l'empreinte HMAC, figée au démarrage.
+    // Une rotation de jwt.secret.key ne doit pas la changer, sinon les sessions non migrées deviennent introuvables
+    @Value("${jwt.legacy-refresh.key:${jwt.secret.key}}")
+    private String legacyRefreshKey;
+
+    // Tokens HS256 émis avant le passage à ES256 : acceptés jusqu'à cette date (ISO-8601), à fixer à la mise en
+    // production d'ES256 + 7 jours (durée de vie d'un refresh token). Non renseignée : refusés
+    @Value("${jwt.legacy-hs256.accepted-until:}")
+    private String legacyHs256AcceptedUntil;
+    private Instant legacyHs256Deadline;
+
+    private final MacAlgorithm sa = Jwts.SIG.HS256;
+    public static final SignatureAlgorithm SIGNING_ALGORITHM = Jwts.SIG.ES256;
+    public static final String SESSION_ID_CLAIM = "sid";
+    public static final String TOKEN_TYPE_CLAIM = "typ";
     private final int ACCESS_TOKEN_EXPIRATION = 15 * 60 * 1000; // 15 minutes
     private final int REFRESH_TOKEN_EXPIRATION = 7 * 24 * 60 * 60 * 1000; // 7 days
+    private static final String REFRESH_DIGEST_ALGORITHM = "HmacSHA256";
+
+    // Clés HMAC (anciens tokens et empreintes legacy), remplacées atomiquement lors d'une rotation
+    private volatile SigningKeys signingKeys;
+    private volatile long keyFileLastModified;
+    private Mac refreshDigestMac;
+    private SecretKey legacyRefreshSecretKey;
+    private JwtParser parser;
 
-    public JwtUtil(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    // Clés ES256 fournies par SigningKeyService, publiées dans le JWKS
+    private volatile PublishedKeys publishedKeys = new PublishedKeys(List.of(), Map.of(), "{\"keys\":[]}", "\"\"");
+
+    private record SigningKeys(String kid, SecretKey key, Map<String, SecretKey> verificationKeys) {
+    }
+
+    public record AsymmetricKey(String kid, Instant activatesAt, PrivateKey privateKey, PublicKey publicKey) {
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(SECRET_KEY);
-        return new SecretKeySpec(keyBytes, sa.getJcaName());
+    // Clés triées par date d'activation ; JWKS sérialisé une fois par changement du jeu de clés
+    private record PublishedKeys(List<AsymmetricKey> keys, Map<String, PublicKey> verificationKeys, String jwks, String etag) {
+
+        AsymmetricKey signingKey(Instant at) {
+            for (int i = keys.size() - 1; i >= 0; i--)
+                if (!keys.get(i).activatesAt().isAfter(at))
+                    return keys.get(i);
+            throw new IllegalStateException("Aucune clé de signature active");
+        }
+    }
+
+    public record PublishedJwks(String json, String etag) {
+    }
+
+    public JwtUtil(AuthMetrics authMetrics) {
+        this.authMetrics = authMetrics;
+    }
+
+    @PostConstruct
+    void initSigningKeys() throws GeneralSecurityException {
+        signingKeys = buildSigningKeys(SECRET_KEY, null);
+        legacyHs256Deadline = StringUtils.hasText(legacyHs256AcceptedUntil) ? Instant.parse(legacyHs256AcceptedUntil) : Instant.MIN;
+
+        // Clé choisie par le kid : ES256 publiée, ou HMAC pour les tokens émis avant ES256.
+        // jjwt refuse un token dont l'algorithme ne correspond pas au type de la clé (pas de HS256 signé avec la clé publique)
+        Locator<Key> keyLocator = header -> {
+            String headerKid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+            PublicKey publicKey = headerKid == null ? null : publishedKeys.verificationKeys().get(headerKid);
+
+            if (publicKey != null || Instant.now().isAfter(legacyHs256Deadline))
+                return publicKey;
+            // Les tokens émis sans kid (avant la rotation) sont vérifiés avec la clé HMAC courante
+            SigningKeys keys = signingKeys;
+            return headerKid == null ? keys.key() : keys.verificationKeys().get(headerKid);
+        };
+
+        parser = Jwts.parser()
+                .keyLocator(keyLocator)
+                .build();
+
+        legacyRefreshSecretKey = new SecretKeySpec(Base64.getDecoder().decode(legacyRefreshKey), "HmacSHA256");
+        refreshDigestMac = Mac.getInstance(REFRESH_DIGEST_ALGORITHM);
+        refreshDigestMac.init(new SecretKeySpec(Base64.getDecoder().decode(refreshDigestKey), REFRESH_DIGEST_ALGORITHM));
+    }
+
+    // Héritage HS256 uniquement : remplace la clé HMAC de vérification des anciens tokens, aucun token n'est plus signé avec.
+    // Les clés de signature ES256 tournent d'elles-mêmes (jwt.signing.rotation-days).
+    // La clé précédente reste acceptée en vérification pour ne pas invalider les tokens déjà émis
+    public synchronized void rotateSigningKey(String base64Key) {
+        signingKeys = buildSigningKeys(base64Key, signingKeys);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.secret.key-file.poll-ms:60000}")
+    public void reloadSigningKeyFile() throws IOException {
+        // Plus aucun token HS256 accepté : la clé HMAC n'a plus d'usage
+        if (!StringUtils.hasText(secretKeyFile) || Instant.now().isAfter(legacyHs256Deadline))
+            return;
+
+        Path path = Path.of(secretKeyFile);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+        if (lastModified != keyFileLastModified) {
+            keyFileLastModified = lastModified;
+            String base64Key = Files.readString(path).trim();
+
+            if (!keyId(Base64.getDecoder().decode(base64Key)).equals(signingKeys.kid()))
+                rotateSigningKey(base64Key);
+        }
+    }
+
+    private SigningKeys buildSigningKeys(String base64Key, SigningKeys previous) {
+        byte[] keyBytes = Base64.getDecoder().decode(base64Key);
+        SecretKey key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        String kid = keyId(keyBytes);
+
+        Map<String, SecretKey> verificationKeys = previous == null || previous.kid().equals(kid)
+                ? Map.of(kid, key)
+                : Map.of(kid, key, previous.kid(), previous.key());
+
+        return new SigningKeys(kid, key, verificationKeys);
     }
 
-    public String generateToken(String email, int tokenType) {
-        Date accessTokenExpiration = new Date(System.currentTimeMillis() + ACCESS_TOKEN_EXPIRATION);
-        Date refreshTokenExpiration = new Date(System.currentTimeMillis() + REFRESH_TOKEN_EXPIRATION);
+    // Jeu de clés ES256 courant : clé suivante publiée avant son activation, clés retirées gardées
+    // en vérification jusqu'à l'expiration des derniers tokens qu'elles ont signés
+    public void useSigningKeys(List<AsymmetricKey> keys) {
+        List<AsymmetricKey> sorted = keys.stream()
+                .sorted(Comparator.comparing(AsymmetricKey::activatesAt))
+                .toList();
 
-        Long userId = userRepository.findByEmail(email)
-                .map(User::getId)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        Map<String, PublicKey> verificationKeys = sorted.stream()
+                .collect(Collectors.toUnmodifiableMap(AsymmetricKey::kid, AsymmetricKey::publicKey));
 
+        String jwks = sorted.stream()
+                .map(key -> Jwks.json(Jwks.builder()
+                        .key((ECPublicKey) key.publicKey())
+                        .id(key.kid())
+                        .algorithm(SIGNING_ALGORITHM.getId())
+                        .publicKeyUse("sig")
+                        .build()))
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+        String etag = '"' + keyId(sorted.stream().map(AsymmetricKey::kid).collect(Collectors.joining(",")).getBytes(StandardCharsets.UTF_8)) + '"';
+
+        publishedKeys = new PublishedKeys(sorted, verificationKeys, jwks, etag);
+    }
+
+    public PublishedJwks jwks() {
+        PublishedKeys keys = publishedKeys;
+        return new PublishedJwks(keys.jwks(), keys.etag());
+    }
+
+    public Set<String> publishedKeyIds() {
+        return publishedKeys.verificationKeys().keySet();
+    }
+
+    // Durée de vie la plus longue d'un token : une clé retirée reste publiée au moins aussi longtemps
+    public long maxTokenLifetimeMillis() {
+        return REFRESH_TOKEN_EXPIRATION;
+    }
+
+    private String keyId(byte[] keyBytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(keyBytes);
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // L'appelant fournit l'identifiant : aucune lecture de l'utilisateur pour signer un token
+    public String generateToken(Long userId, String email, int tokenType) {
+        return generateToken(userId, email, tokenType, new Date());
+    }
+
+    public String generateToken(Long userId, String email, int tokenType, Date issuedAt) {
+        return generateToken(userId, email, tokenType, issuedAt, null);
+    }
+
+    // sessionId : session (appareil) du refresh token dans user_token, reprise par le token d'accès pour la déconnexion
+    public String generateToken(Long userId, String email, int tokenType, Date issuedAt, String sessionId) {
+        AsymmetricKey key = publishedKeys.signingKey(issuedAt.toInstant());
 
         return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(new Date())
+                .header().keyId(key.kid()).and()
+                .id(UUID.randomUUID().toString()) // jti : identifiant de révocation (TokenRevocationService)
+                .subject(email)
+                .issuedAt(issuedAt)
                 .claim("userId", userId)
-                .setExpiration(JwtTokenEnum.ACCESS.getId() == tokenType ? accessTokenExpiration : refreshTokenExpiration)
-                .signWith(getSigningKey(), sa)
+                .claim(SESSION_ID_CLAIM, sessionId) // ignoré si null
+                .claim(TOKEN_TYPE_CLAIM, JwtTokenEnum.ACCESS.getId() == tokenType ? JwtTokenEnum.ACCESS.getType() : JwtTokenEnum.REFRESH.getType())
+                .expiration(expirationDate(tokenType, issuedAt))
+                .signWith(key.privateKey(), SIGNING_ALGORITHM)
                 .compact();
     }
 
+    public Date expirationDate(int tokenType, Date issuedAt) {
+        long lifetime = JwtTokenEnum.ACCESS.getId() == tokenType ? ACCESS_TOKEN_EXPIRATION : REFRESH_TOKEN_EXPIRATION;
+        return new Date(issuedAt.getTime() + lifetime);
+    }
+
     public Claims extractClaims(String token) {
-        JwtParser jwtParser = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build();
+        try {
+            return parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException e) {
+            authMetrics.jwtParseFailed(e);
+            throw e;
+        }
+    }
+
+    // Seul un token d'accès authentifie une requête : un refresh token (7 jours) n'est valable que pour /auth/refresh-token
+    public boolean isAccessToken(Claims claims) {
+        String type = claims.get(TOKEN_TYPE_CLAIM, String.class);
+        if (type != null)
+            return JwtTokenEnum.ACCESS.getType().equals(type);
 
-        return jwtParser.parseClaimsJws(token).getBody();
+        // Tokens émis avant le claim typ : type déduit de leur durée de vie (dates arrondies à la seconde)
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        return issuedAt != null && expiration != null && expiration.getTime() - issuedAt.getTime() <= ACCESS_TOKEN_EXPIRATION + 1000;
     }
 
     public boolean validateToken(String token, String email) throws JwtException {
-        return email.equals(extractClaims(token).getSubject());
+        return validateToken(extractClaims(token), email);
     }
 
-    public String hashRefreshToken(String refreshToken) {
+    // Evite de parser une seconde fois un token dont les claims ont déjà été extraits
+    public boolean validateToken(Claims claims, String email) {
+        return email.equals(claims.getSubject());
+    }
+
+    // Empreinte HMAC-SHA256 de 32 octets, stockée telle quelle et indexée
+    public byte[] hashRefreshToken(String refreshToken) {
         try {
-            return Jwts.builder()
-                    .setSubject(refreshToken)
-                    .signWith(getSigningKey(), sa)
-                    .compact();
-        } catch (Exception e) {
+            Mac mac = (Mac) refreshDigestMac.clone(); // Mac n'est pas thread-safe, on part d'une copie déjà initialisée
+            return mac.doFinal(refreshToken.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException e) {
             throw new RuntimeException("Erreur lors du hashing du refresh token", e);
         }
     }
 
-    public boolean validateRefreshTokenHash(String originalRefreshToken, String hashedRefreshToken) {
-        try {
-            String computedHash = hashRefreshToken(originalRefreshToken);
-            // Comparaison sécurisée pour éviter les timing attacks
-            return MessageDigest.isEqual(
-                    computedHash.getBytes(StandardCharsets.UTF_8),
-                    hashedRefreshToken.getBytes(StandardCharsets.UTF_8)
-            );
-        } catch (Exception e) {
-            return false;
-        }
+    public boolean validateRefreshTokenHash(String originalRefreshToken, byte[] hashedRefreshToken) {
+        // Comparaison sécurisée pour éviter les timing attacks
+        return MessageDigest.isEqual(hashRefreshToken(originalRefreshToken), hashedRefreshToken);
+    }
+
+    // Ancien format (JWT signé ayant le token pour sujet), conservé pour migrer les sessions existantes
+    public String legacyHashRefreshToken(String refreshToken) {
+        return Jwts.builder()
+                .subject(refreshToken)
+                .signWith(legacyRefreshSecretKey, sa)
+                .compact();
     }
-}
\ No newline at end of file
+}
@@ -3,10 +3,23 @@ package com.ethereum.sajauth;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.util.StringUtils;
 
-@SpringBootApplication
+// @SpringBootApplication sans le package reactive : variante du profil Maven reactive, démarrée par ReactiveSajauthApplication
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(excludeFilters = {
+		@ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+		@ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class),
+		@ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.ethereum\\.sajauth\\.reactive\\..*")})
+@EnableScheduling
 public class SajauthApplication {
 
 	@Value("${jwt.secret.key}")
@@ -15,6 +28,7 @@ public class SajauthApplication {
 	@Value("${spring.mail.password}")
 	private String smtpPassword;
 
+	// Valeurs par défaut : DefaultPropertiesPostProcessor
 	public static void main(String[] args) {
 		SpringApplication.run(SajauthApplication.class, args);
 	}
@@ -0,0 +1,35 @@
+package com.ethereum.sajauth;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Le schéma appartient aux migrations Flyway (src/main/resources/db/migration) : Hibernate se contente de
+// vérifier qu'il correspond aux entités, sans comparer ni modifier la base à chaque démarrage
+@Configuration
+@ConditionalOnProperty(name = "spring.flyway.enabled", matchIfMissing = true)
+public class SchemaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaConfig.class);
+
+    @Bean
+    public HibernatePropertiesCustomizer validateSchemaOnly(@Value("${spring.jpa.hibernate.ddl-auto:}") String configuredDdlAuto) {
+        return hibernateProperties -> {
+            // none explicite : aucune vérification (Spring Boot retire alors la propriété, elle ne se voit plus ici)
+            if ("none".equals(configuredDdlAuto))
+                return;
+
+            // Un application.properties local peut encore contenir ddl-auto=update
+            Object ddlAuto = hibernateProperties.get(AvailableSettings.HBM2DDL_AUTO);
+            if (ddlAuto != null && !"validate".equals(ddlAuto))
+                log.warn("ddl-auto={} remplacé par validate : le schéma est géré par Flyway (none pour désactiver la vérification)", ddlAuto);
+
+            hibernateProperties.put(AvailableSettings.HBM2DDL_AUTO, "validate");
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.ethereum.sajauth.controllers;
+
+import com.ethereum.sajauth.DTO.MessageResponse;
+import com.ethereum.sajauth.exceptions.IntrospectionBatchSizeException;
+import com.ethereum.sajauth.exceptions.PasswordHashingBusyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<?> passwordHashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MessageResponse("Service momentanément surchargé, veuillez réessayer"));
+    }
+
+    @ExceptionHandler(IntrospectionBatchSizeException.class)
+    public ResponseEntity<?> introspectionBatchSize(IntrospectionBatchSizeException e) {
+        return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+    }
+}
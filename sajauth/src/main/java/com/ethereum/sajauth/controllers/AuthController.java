@@ -1,30 +1,34 @@
 package com.ethereum.sajauth.controllers;
 
+import com.ethereum.sajauth.CustomUserDetailsService;
 import com.ethereum.sajauth.DTO.*;
 import com.ethereum.sajauth.JwtUtil;
 import com.ethereum.sajauth.entities.User;
 import com.ethereum.sajauth.enums.MailTypeEnum;
 import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
 import com.ethereum.sajauth.services.*;
+import com.ethereum.sajauth.utils.CookieUtils;
+import com.ethereum.sajauth.utils.ValidationUtils;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.mail.MailException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -35,96 +39,101 @@ public class AuthController {
     private final VerificationTokenService verificationTokenService;
     private final EmailService emailService;
     private final UserTokenService userTokenService;
+    private final RefreshTokenRotator refreshTokenRotator;
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final LoginAttemptService loginAttemptService;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenIntrospectionService tokenIntrospectionService;
+    private final TokenRevocationService tokenRevocationService;
 
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
-    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[\\W_]).{8,}$");
-    private static final int LOGIN_TIMEOUT = 5;
+    @Value("${jwt.jwks.max-age-seconds:3600}")
+    private long jwksMaxAgeSeconds;
 
     public AuthController(
             AuthenticationManager authenticationManager,
             UserRepository userRepository,
             VerificationTokenService verificationTokenService,
-            EmailService emailService, UserTokenService userTokenService,
-            UserService userService, JwtUtil jwtUtil) {
+            EmailService emailService, UserTokenService userTokenService, RefreshTokenRotator refreshTokenRotator,
+            UserService userService, JwtUtil jwtUtil, LoginAttemptService loginAttemptService,
+            CustomUserDetailsService userDetailsService, TokenIntrospectionService tokenIntrospectionService,
+            TokenRevocationService tokenRevocationService) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.verificationTokenService = verificationTokenService;
         this.emailService = emailService;
         this.userTokenService = userTokenService;
+        this.refreshTokenRotator = refreshTokenRotator;
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.loginAttemptService = loginAttemptService;
+        this.userDetailsService = userDetailsService;
+        this.tokenIntrospectionService = tokenIntrospectionService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @PostMapping("/auth/register")
     public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest) {
-        if (!EMAIL_PATTERN.matcher(registerRequest.getEmail()).matches())
+        if (!ValidationUtils.isValidEmail(registerRequest.getEmail()))
             return ResponseEntity.badRequest().body(new MessageResponse("Email invalide"));
 
         if (userRepository.existsByEmail(registerRequest.getEmail()))
             return ResponseEntity.badRequest().body(new MessageResponse("Email déjà utilisé"));
 
-        if (!PASSWORD_PATTERN.matcher(registerRequest.getPassword()).matches())
+        if (!ValidationUtils.isStrongPassword(registerRequest.getPassword()))
             return ResponseEntity.badRequest().body(new MessageResponse("Le mot de passe doit contenir au moins 8 caractères, minuscule, majuscule, chiffre et caractère spécial"));
 
-        // Création du nouvel utilisateur
+        // Création du nouvel utilisateur, l'email de confirmation est envoyé hors requête
         User user = userService.fillUser(registerRequest.getEmail(), registerRequest.getPassword());
-
-        try {
-            emailService.sendEmail(user, MailTypeEnum.MAIL_CONFIRMATION.getMailType());
-        } catch (MailException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new MessageResponse("Erreur lors de l'envoi de l'email de confirmation"));
-        }
+        emailService.queueEmail(user, MailTypeEnum.MAIL_CONFIRMATION.getMailType());
 
         return ResponseEntity.ok(new MessageResponse("Un email de confirmation vous a été envoyé"));
     }
 
     @PostMapping("/auth/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletResponse response, HttpSession session) {
-        User user = null;
-        try {
-            user = userRepository.findByEmail(loginRequest.getEmail())
-                    .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé"));
-
-            UserRequestTimeout userRequestLimit = (UserRequestTimeout) session.getAttribute("loginAttempts/" + user.getEmail());
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request, HttpServletResponse response) {
+        String clientIp = request.getRemoteAddr();
+        long retryAfter = loginAttemptService.retryAfter(loginRequest.getEmail(), clientIp);
 
-            if (userRequestLimit != null && userRequestLimit.getTimeoutExpiration().isAfter(LocalDateTime.now()))
-                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new MessageResponse("Vous avez atteint la limite de tentative de connexion, Veuillez réessayer plus tard..."));
+        if (retryAfter > 0)
+            return tooManyLoginAttempts(retryAfter);
 
-            /* Authentification */
+        try {
+            /* Authentification : l'utilisateur est lu une seule fois, par CustomUserDetailsService, puis servi depuis le cache */
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getEmail(),
                             loginRequest.getPassword()
                     )
             );
+            loginAttemptService.loginSucceeded(loginRequest.getEmail());
 
-            TokenResponse userTokens = userTokenService.createUserTokens(user, response);
+            UserAuthState userState = userDetailsService.loadUserAuthState(loginRequest.getEmail());
+            TokenResponse userTokens = userTokenService.createUserTokens(userState.getUserId(), userState.getEmail(),
+                    request.getHeader(HttpHeaders.USER_AGENT), response);
 
-            return ResponseEntity.ok(new LoginResponse(userTokens.getAccessToken(), user.getId()));
+            return ResponseEntity.ok(new LoginResponse(userTokens.getAccessToken(), userState.getUserId()));
         } catch (UsernameNotFoundException | BadCredentialsException e) {
-            if (user != null) {
-                boolean needALoginTimeout = userService.limitLoginAttempts(user);
-
-                if (needALoginTimeout) {
-                    UserRequestTimeout userTimeout = new UserRequestTimeout();
-                    userTimeout.setUser(user);
-                    userTimeout.setTimeoutExpiration(LocalDateTime.now().now().plusMinutes(LOGIN_TIMEOUT));
-                    session.setAttribute("loginAttempts/" + user.getEmail(), userTimeout);
-                    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new MessageResponse("Vous avez atteint la limite de tentative de connexion, Veuillez réessayer plus tard..."));
-                }
-            }
+            long wait = loginAttemptService.loginFailed(loginRequest.getEmail(), clientIp);
+
+            if (wait > 0)
+                return tooManyLoginAttempts(wait);
+
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Email ou mot de passe incorrect"));
-        } catch (MailException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new MessageResponse("Erreur lors de l'envoi de l'email de confirmation"));
         } catch (DisabledException e) {
-            emailService.sendEmail(user, MailTypeEnum.MAIL_CONFIRMATION.getMailType());
+            // Cas rare : l'entité n'est chargée que pour renvoyer l'email de confirmation
+            userRepository.findByEmail(loginRequest.getEmail())
+                    .ifPresent(user -> emailService.queueEmail(user, MailTypeEnum.MAIL_CONFIRMATION.getMailType()));
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new MessageResponse("Email ou mot de passe incorrect"));
         }
     }
 
+    private ResponseEntity<?> tooManyLoginAttempts(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new MessageResponse("Vous avez atteint la limite de tentative de connexion, Veuillez réessayer plus tard..."));
+    }
+
     @PostMapping("/auth/verify-email")
     public ResponseEntity<?> verifyAccount(@RequestBody VerifyAccountRequest request) {
         return verificationTokenService.validateEmailByToken(request.getToken())
@@ -133,23 +142,56 @@ public class AuthController {
     }
 
     @GetMapping("/validate-token")
-    public ResponseEntity<?> validateToken() {
-        return ResponseEntity.ok().build();
+    public ResponseEntity<?> validateToken(@AuthenticationPrincipal UserAuthState userState) {
+        // Claims renvoyés directement pour éviter un second décodage du token côté appelant
+        return ResponseEntity.ok(new TokenClaimsResponse(userState.getUserId(), userState.getEmail(), userState.getRole()));
+    }
+
+    // Validation groupée pour les passerelles et workers : un appel pour tout un lot au lieu d'un par token.
+    // Un élément par token dans l'ordre reçu
+    @PostMapping("/introspect")
+    public ResponseEntity<List<TokenIntrospectionResponse>> introspect(@RequestBody IntrospectionRequest request) {
+        return ResponseEntity.ok(tokenIntrospectionService.introspect(request.getTokens()));
+    }
+
+    // Clés publiques de vérification des tokens : les consommateurs (API Nest) valident les tokens sans appeler ce service.
+    // La clé suivante y figure avant de signer, le cache des consommateurs peut donc aller jusqu'à max-age
+    @GetMapping(value = "/auth/jwks", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        JwtUtil.PublishedJwks jwks = jwtUtil.jwks();
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(jwksMaxAgeSeconds)).cachePublic();
+
+        if (request.checkNotModified(jwks.etag()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).eTag(jwks.etag()).build();
+
+        return ResponseEntity.ok().cacheControl(cacheControl).eTag(jwks.etag()).body(jwks.json());
+    }
+
+    // Révocations (déconnexions) pour les consommateurs qui valident les tokens localement via le JWKS.
+    // Relu chaque seconde avec since = dernier revokedAt reçu moins une marge ; un jti seul ne donne aucun accès
+    @GetMapping("/auth/revoked")
+    public List<RevokedTokenResponse> revoked(@RequestParam(defaultValue = "0") long since) {
+        return tokenRevocationService.revokedSince(since);
     }
 
     @GetMapping("/auth/refresh-token")
     public ResponseEntity<?> refreshToken(@CookieValue("refreshToken") String refreshToken, HttpServletResponse response) {
         try {
             Claims claims = jwtUtil.extractClaims(refreshToken); // Vérifie la signature et l'expiration
-            String email = claims.getSubject();
-            User user = userService.getUserFromToken(refreshToken);
+            if (claims.getSubject() == null)
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Token invalide ou révoqué"));
 
-            if (email == null || !userTokenService.validateRefreshToken(refreshToken, user)) // Vérifie si le token est révoqué ou non
+            // Rotation limitée à la session du token, sans effet sur ses autres appareils ; compte lu avec la session.
+            // Les refresh simultanés du même token partagent une seule rotation
+            Optional<TokenResponse> userTokens = refreshTokenRotator.refresh(refreshToken, claims);
+            if (userTokens.isEmpty())
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Token invalide ou révoqué"));
 
-            TokenResponse userTokens = userTokenService.createUserTokens(user, response);
+            // Pas de nouveau refresh token pour un appel arrivé après la rotation : le cookie posé par celle-ci est conservé
+            if (userTokens.get().getRefreshToken() != null)
+                CookieUtils.addRefreshTokenCookie(response, userTokens.get().getRefreshToken());
 
-            return ResponseEntity.ok(new LoginResponse(userTokens.getAccessToken(), user.getId()));
+            return ResponseEntity.ok(new LoginResponse(userTokens.get().getAccessToken(), userTokens.get().getUserId()));
 
         } catch (ExpiredJwtException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Token expiré"));
@@ -168,12 +210,16 @@ public class AuthController {
 
         try {
             String jwt = authHeader.substring(7);
-            User user = userService.getUserFromToken(jwt);
+            Claims claims = jwtUtil.extractClaims(jwt);
+            User user = userService.getUserByEmail(claims.getSubject()).orElse(null);
 
             if (user == null)
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Utilisateur non trouvé"));
 
-            userTokenService.removeOldUserTokens(user);
+            // Le token d'accès est refusé dès maintenant, sans attendre son expiration
+            tokenRevocationService.revoke(claims);
+            // Seule la session de cet appareil est fermée
+            userTokenService.removeUserSession(user, claims.get(JwtUtil.SESSION_ID_CLAIM, String.class));
             return ResponseEntity.ok().body(new MessageResponse("Déconnexion réussie"));
 
         } catch (JwtException e) {
@@ -187,14 +233,14 @@ public class AuthController {
     public ResponseEntity<?> forgotPassword(@RequestBody ForgotPwdRequest request) {
         try {
             // Validation de l'email
-            if (!EMAIL_PATTERN.matcher(request.getEmail()).matches())
+            if (!ValidationUtils.isValidEmail(request.getEmail()))
                 return ResponseEntity.badRequest().body(new MessageResponse("Email invalide"));
 
             Optional<User> userOptional = userService.getUserByEmail(request.getEmail());
 
             if (userOptional.isPresent()) {
                 User user = userOptional.get();
-                emailService.sendEmail(user, MailTypeEnum.RESET_PWD.getMailType());
+                emailService.queueEmail(user, MailTypeEnum.RESET_PWD.getMailType());
             }
 
             return ResponseEntity.ok(new MessageResponse("Un email de réinitialisation de mot de passe vous a été envoyé"));
@@ -210,8 +256,4 @@ public class AuthController {
                 .map(user -> ResponseEntity.ok(new MessageResponse("Mot de passe modifié avec succès !")))
                 .orElse(ResponseEntity.badRequest().body(new MessageResponse("Token invalide ou expiré")));
     }
-
 }
-
-
-
@@ -0,0 +1,82 @@
+package com.ethereum.sajauth.datasource;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Lectures sur un réplica PostgreSQL, activées par app.datasource.replica.url :
+//   app.datasource.replica.url / username / password, pool réglable par app.datasource.replica.hikari.*
+// Le primaire reste configuré par spring.datasource.* et sert les écritures, Flyway et tout ce qui s'exécute hors transaction
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setPoolName("replica");
+        // Réplica injoignable : bascule rapide sur le primaire plutôt qu'une requête bloquée
+        dataSource.setConnectionTimeout(1000);
+        dataSource.setInitializationFailTimeout(-1); // démarrage possible sans réplica
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaRouting replicaRouting, AuthMetrics authMetrics) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, replicaRouting, authMetrics));
+    }
+
+    // Spring garde par défaut la connexion dans la session jusqu'à sa fermeture : avec open-in-view, une requête
+    // réutiliserait pour ses écritures la connexion réplica de sa première lecture. Rendue à chaque fin de transaction,
+    // la connexion est choisie de nouveau par la transaction suivante
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica, ReplicaRouting replicaRouting,
+                                               AuthMetrics authMetrics) {
+        return new ReplicaLagMonitor(replica, replicaRouting, authMetrics);
+    }
+
+    @Bean
+    public MeterBinder replicaLagMetrics(ReplicaLagMonitor replicaLagMonitor) {
+        return registry -> Gauge.builder("sajauth.datasource.replica.lag", replicaLagMonitor, ReplicaLagMonitor::getLagMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ethereum.sajauth.datasource;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+// Mesure périodique du retard de réplication : au-delà du seuil, ou si le réplica ne répond pas,
+// toutes les lectures repassent sur le primaire jusqu'à ce qu'il ait rattrapé
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // Aucun retard quand tout le WAL reçu est rejoué : pg_last_xact_replay_timestamp() vieillit aussi
+    // sur un réplica à jour dont le primaire n'écrit plus. NULL (0) si l'URL désigne un serveur qui n'est pas en réplication
+    private static final String LAG_SQL = """
+            SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+                   END
+            """;
+
+    @Value("${app.datasource.replica.max-lag-ms:1000}")
+    private long maxLagMillis;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final ReplicaRouting replicaRouting;
+    private final AuthMetrics authMetrics;
+
+    private volatile long lagMillis;
+
+    public ReplicaLagMonitor(DataSource replica, ReplicaRouting replicaRouting, AuthMetrics authMetrics) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.replicaRouting = replicaRouting;
+        this.authMetrics = authMetrics;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-ms:1000}")
+    public void check() {
+        boolean available;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Double.class);
+            lagMillis = lag == null ? 0 : lag.longValue();
+            available = lagMillis <= maxLagMillis;
+        } catch (DataAccessException e) {
+            lagMillis = -1;
+            available = false;
+        }
+
+        if (available != replicaRouting.isReplicaAvailable()) {
+            if (available) {
+                log.info("Réplica de nouveau utilisé pour les lectures (retard {} ms)", lagMillis);
+            } else {
+                log.warn("Réplica écarté des lectures (retard {} ms, seuil {} ms)", lagMillis, maxLagMillis);
+                authMetrics.replicaFallback(lagMillis < 0 ? "unavailable" : "lag");
+            }
+            replicaRouting.replicaAvailable(available);
+        }
+    }
+
+    // -1 : réplica injoignable
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
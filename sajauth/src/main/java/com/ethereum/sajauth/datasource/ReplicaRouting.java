@@ -0,0 +1,99 @@
+package com.ethereum.sajauth.datasource;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Choix primaire / réplica de la connexion de la transaction en cours (voir ReplicaRoutingDataSource).
+// Les transactions en lecture seule vont sur le réplica, sauf pour un compte tout juste modifié
+// et tant que le réplica est en retard ou injoignable. Sans app.datasource.replica.url, tout reste sur le primaire.
+@Component
+public class ReplicaRouting {
+
+    // Fenêtre de lecture de ses propres écritures, à garder au-dessus du retard de réplication toléré
+    @Value("${app.datasource.replica.read-your-writes-ms:5000}")
+    private long readYourWritesMillis;
+
+    @Value("${app.datasource.replica.url:}")
+    private String replicaUrl;
+
+    private final AuthMetrics authMetrics;
+
+    private final ThreadLocal<Boolean> primaryPinned = new ThreadLocal<>();
+    private final ConcurrentHashMap<String, Long> recentWrites = new ConcurrentHashMap<>();
+    private volatile boolean replicaAvailable = true;
+
+    public ReplicaRouting(AuthMetrics authMetrics) {
+        this.authMetrics = authMetrics;
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(replicaUrl);
+    }
+
+    // Evalué à la première requête SQL de la transaction, la connexion étant obtenue à la demande
+    boolean routeToReplica() {
+        return replicaAvailable
+                && primaryPinned.get() == null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    // Ecriture sur un compte : ses lectures restent sur le primaire le temps que la réplication rattrape
+    public void markWritten(String email) {
+        if (isEnabled())
+            recentWrites.put(email, System.currentTimeMillis() + readYourWritesMillis);
+    }
+
+    // Lecture d'un compte. Hors transaction, un compte absent du réplica est relu sur le primaire :
+    // l'écriture a pu avoir lieu sur une autre instance, qui seule connaît la fenêtre de markWritten.
+    // Un compte présent mais en retard (activé ou désactivé ailleurs) est servi tel quel : les décisions d'accès
+    // (identifiants et activation à la connexion, tokens de vérification) passent par onPrimary ou une transaction d'écriture.
+    // Dans une transaction, l'appel doit précéder la première requête pour choisir la connexion.
+    public <T> Optional<T> readAccount(String email, Supplier<Optional<T>> read) {
+        if (!isEnabled())
+            return read.get();
+
+        Long writtenUntil = recentWrites.get(email);
+        if (writtenUntil != null && writtenUntil >= System.currentTimeMillis())
+            return onPrimary(read);
+
+        Optional<T> result = read.get();
+        if (result.isPresent() || TransactionSynchronizationManager.isActualTransactionActive())
+            return result;
+
+        authMetrics.replicaFallback("miss");
+        return onPrimary(read);
+    }
+
+    public <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = primaryPinned.get();
+        primaryPinned.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null)
+                primaryPinned.remove();
+        }
+    }
+
+    void replicaAvailable(boolean available) {
+        replicaAvailable = available;
+    }
+
+    boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.read-your-writes-ms:5000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        recentWrites.values().removeIf(writtenUntil -> writtenUntil < now);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ethereum.sajauth.datasource;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+// Primaire ou réplica selon ReplicaRouting. Doit être enveloppé dans un LazyConnectionDataSourceProxy :
+// la connexion n'est demandée qu'à la première requête, une fois le caractère lecture seule de la transaction connu
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private enum Target {PRIMARY, REPLICA}
+
+    private final DataSource primary;
+    private final ReplicaRouting replicaRouting;
+    private final AuthMetrics authMetrics;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaRouting replicaRouting, AuthMetrics authMetrics) {
+        this.primary = primary;
+        this.replicaRouting = replicaRouting;
+        this.authMetrics = authMetrics;
+
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaRouting.routeToReplica() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    // Réplica injoignable : la lecture passe sur le primaire, et les suivantes aussi jusqu'au prochain contrôle de ReplicaLagMonitor
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary)
+            return primary.getConnection();
+
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            log.warn("Réplica injoignable, lectures redirigées vers le primaire : {}", e.getMessage());
+            replicaRouting.replicaAvailable(false);
+            authMetrics.replicaFallback("unavailable");
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+}
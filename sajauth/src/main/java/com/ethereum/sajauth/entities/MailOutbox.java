@@ -0,0 +1,46 @@
+package com.ethereum.sajauth.entities;
+
+import com.ethereum.sajauth.enums.MailOutboxStatusEnum;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_mail_outbox_recipient_type", columnList = "recipient, mail_type")
+})
+public class MailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String username;
+
+    @Column(name = "mail_type", nullable = false)
+    private String mailType;
+
+    private String token; // Vidé une fois l'email envoyé ou abandonné
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MailOutboxStatusEnum status = MailOutboxStatusEnum.PENDING;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime createdAt;
+
+    @Column(length = 512)
+    private String lastError;
+}
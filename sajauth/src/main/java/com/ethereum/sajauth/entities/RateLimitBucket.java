@@ -0,0 +1,19 @@
+package com.ethereum.sajauth.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Etat partagé de JdbcRateLimiter, écrit uniquement en SQL natif
+@Getter
+@Setter
+@Entity
+@Table(name = "rate_limit_bucket")
+public class RateLimitBucket {
+    @Id
+    @Column(name = "bucket_key")
+    private String bucketKey;
+
+    @Column(nullable = false)
+    private long tat; // instant théorique d'arrivée, en millisecondes
+}
@@ -0,0 +1,35 @@
+package com.ethereum.sajauth.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Liste de révocation partagée entre instances (TokenRevocationService), écrite et relue en SQL natif
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "revoked_token",
+        uniqueConstraints = @UniqueConstraint(name = "uk_revoked_token_jti", columnNames = "jti"),
+        indexes = {
+                @Index(name = "idx_revoked_token_revoked_at", columnList = "revoked_at"), // lecture des nouvelles révocations
+                @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at, id") // purge par ExpiredTokenReaper
+        }
+)
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String jti;
+
+    // Expiration du token : la révocation n'a plus d'objet au-delà
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
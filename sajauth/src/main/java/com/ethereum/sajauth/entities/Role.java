@@ -3,11 +3,17 @@ package com.ethereum.sajauth.entities;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "roles")
+@Table(name = "roles", uniqueConstraints = @UniqueConstraint(name = "uk_roles_name", columnNames = "name"))
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY) // jamais modifiés : le rôle chargé avec chaque User est servi par le cache de second niveau
 public class Role {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
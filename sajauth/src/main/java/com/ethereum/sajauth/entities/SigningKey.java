@@ -0,0 +1,41 @@
+package com.ethereum.sajauth.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Clé ES256 de signature des tokens. La clé privée est chiffrée (AES-GCM) par SigningKeyService.
+// Une clé par période de rotation : l'unicité de activates_at empêche deux instances d'en créer chacune une
+@Entity
+@Getter
+@Setter
+@Table(
+        name = "signing_key",
+        uniqueConstraints = @UniqueConstraint(name = "uk_signing_key_activates_at", columnNames = "activates_at")
+)
+public class SigningKey {
+    // Empreinte RFC 7638 de la clé publique
+    @Id
+    @Column(length = 64)
+    private String kid;
+
+    @Column(nullable = false, length = 16)
+    private String algorithm;
+
+    // X.509 (SubjectPublicKeyInfo)
+    @Column(name = "public_key", nullable = false)
+    private byte[] publicKey;
+
+    // IV || PKCS#8 chiffré
+    @Column(name = "private_key", nullable = false)
+    private byte[] privateKey;
+
+    @Column(name = "activates_at", nullable = false)
+    private Instant activatesAt;
+
+    // Fin de la période de signature ; la clé reste publiée ensuite le temps de vie d'un refresh token
+    @Column(name = "retires_at", nullable = false)
+    private Instant retiresAt;
+}
@@ -4,8 +4,6 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.time.LocalDateTime;
-
 @Getter
 @Setter
 @Entity
@@ -28,12 +26,6 @@ public class User {
     @Column(nullable = false, columnDefinition = "boolean default false")
     private boolean enabled = false;
 
-    @Column(nullable = false, columnDefinition = "integer default 0")
-    private int loginAttempts = 0;
-
-    private String verificationToken;
-    private LocalDateTime verificationTokenExpiry;
-
     @ManyToOne
     @JoinColumn(name = "role")
     private Role role;
@@ -9,17 +9,60 @@ import java.util.Date;
 @Entity
 @Getter
 @Setter
+@Table(
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_user_token_token_hash", columnNames = "token_hash"), // sert aussi d'index de recherche par empreinte
+                @UniqueConstraint(name = "uk_user_token_session_id", columnNames = "session_id")
+        },
+        indexes = {
+                // Révocation de toutes les sessions d'un utilisateur et éviction des moins récemment utilisées
+                @Index(name = "idx_user_token_user_id_last_used_at", columnList = "user_id, last_used_at"),
+                @Index(name = "idx_user_token_previous_token_hash", columnList = "previous_token_hash"), // refresh concurrents
+                @Index(name = "idx_user_token_expiration_date", columnList = "expiration_date, id") // purge par ExpiredTokenReaper
+        }
+)
+// Une ligne par session (appareil) : le refresh token courant de la session, remplacé à chaque rotation
 public class UserToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Lu avec la session au refresh (join fetch) pour refuser un compte désactivé
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @Column(length = 1024) // Refresh token étant hashé
+    // Claim sid des tokens de la session
+    @Column(name = "session_id", nullable = false, length = 36)
+    private String sessionId;
+
+    // User-Agent à la connexion, pour lister les appareils
+    @Column(length = 255)
+    private String device;
+
+    // Ancien format de hash, vidé lorsque la session est migrée vers tokenHash
+    @Column(length = 1024)
     private String refreshToken;
+
+    @Column(name = "token_hash", length = 32) // HMAC-SHA256 du refresh token
+    private byte[] tokenHash;
+
+    // Token remplacé par la dernière rotation, encore accepté pendant app.sessions.refresh-grace-ms après rotatedAt
+    @Column(name = "previous_token_hash", length = 32)
+    private byte[] previousTokenHash;
+
+    @Column(name = "rotated_at")
+    private Date rotatedAt;
+
+    // Deux rotations simultanées de la même session : la seconde échoue au lieu d'écraser la première
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     private Date creationDate;
     private Date expirationDate;
+
+    // Dernière rotation : la session la plus ancienne est évincée au-delà de app.sessions.max-per-user
+    @Column(name = "last_used_at", nullable = false)
+    private Date lastUsedAt;
 }
@@ -0,0 +1,40 @@
+package com.ethereum.sajauth.entities;
+
+import com.ethereum.sajauth.enums.MailTypeEnum;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Token de confirmation d'email ou de réinitialisation : seule l'empreinte SHA-256 est stockée
+@Entity
+@Getter
+@Setter
+@Table(
+        name = "verification_token",
+        uniqueConstraints = @UniqueConstraint(name = "uk_verification_token_token_hash", columnNames = "token_hash"),
+        indexes = {
+                @Index(name = "idx_verification_token_user_id", columnList = "user_id"),
+                @Index(name = "idx_verification_token_expires_at", columnList = "expires_at, id") // purge par ExpiredTokenReaper
+        }
+)
+public class VerificationToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @Column(name = "token_hash", length = 32, nullable = false)
+    private byte[] tokenHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "mail_type", nullable = false, length = 32)
+    private MailTypeEnum type;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
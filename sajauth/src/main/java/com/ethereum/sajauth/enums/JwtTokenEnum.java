@@ -4,12 +4,14 @@ import lombok.Getter;
 
 @Getter
 public enum JwtTokenEnum {
-    ACCESS(1),
-    REFRESH(2);
+    ACCESS(1, "access"),
+    REFRESH(2, "refresh");
 
     private final int id;
+    private final String type; // valeur du claim typ
 
-    JwtTokenEnum(int id) {
+    JwtTokenEnum(int id, String type) {
         this.id = id;
+        this.type = type;
     }
 }
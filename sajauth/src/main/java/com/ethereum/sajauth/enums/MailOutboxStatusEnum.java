@@ -0,0 +1,7 @@
+package com.ethereum.sajauth.enums;
+
+public enum MailOutboxStatusEnum {
+    PENDING,
+    SENT,
+    FAILED
+}
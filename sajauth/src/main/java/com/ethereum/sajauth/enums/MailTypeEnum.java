@@ -4,12 +4,24 @@ import lombok.Getter;
 
 @Getter
 public enum MailTypeEnum {
-    RESET_PWD("RESET_PWD"),
-    MAIL_CONFIRMATION("MAIL_CONFIRMATION");
+    RESET_PWD("RESET_PWD", "Réinitialiser votre mot de passe", "/reset-password/"),
+    MAIL_CONFIRMATION("MAIL_CONFIRMATION", "Confirmation de votre compte", "/verify-email/");
 
     private final String mailType;
+    private final String subject;
+    private final String frontendPath;
 
-    MailTypeEnum(String mailType) {
+    MailTypeEnum(String mailType, String subject, String frontendPath) {
         this.mailType = mailType;
+        this.subject = subject;
+        this.frontendPath = frontendPath;
     }
-}
\ No newline at end of file
+
+    public static MailTypeEnum fromMailType(String mailType) {
+        for (MailTypeEnum type : values()) {
+            if (type.mailType.equals(mailType))
+                return type;
+        }
+        throw new IllegalArgumentException("Type d'email inconnu : " + mailType);
+    }
+}
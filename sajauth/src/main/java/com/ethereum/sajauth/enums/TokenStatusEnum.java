@@ -0,0 +1,9 @@
+package com.ethereum.sajauth.enums;
+
+public enum TokenStatusEnum {
+    ACTIVE,
+    EXPIRED,
+    INVALID,  // signature, format ou clé inconnue
+    REVOKED,  // compte supprimé
+    DISABLED  // compte non activé
+}
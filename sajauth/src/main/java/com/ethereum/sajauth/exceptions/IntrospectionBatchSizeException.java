@@ -0,0 +1,8 @@
+package com.ethereum.sajauth.exceptions;
+
+// Lot vide ou au-delà de app.introspection.max-batch : réponse 400
+public class IntrospectionBatchSizeException extends RuntimeException {
+    public IntrospectionBatchSizeException(String message) {
+        super(message);
+    }
+}
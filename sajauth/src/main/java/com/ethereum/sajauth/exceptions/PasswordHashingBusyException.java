@@ -0,0 +1,8 @@
+package com.ethereum.sajauth.exceptions;
+
+// Pool de hashage saturé : la requête est rejetée immédiatement plutôt que d'attendre
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ethereum.sajauth.metrics;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Compteurs et timers applicatifs, enregistrés une fois : pas de recherche dans le registre sur les chemins fréquents
+@Component
+public class AuthMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Counter expiredTokens;
+    private final Counter invalidSignatureTokens;
+    private final Counter malformedTokens;
+    private final Counter otherInvalidTokens;
+
+    private final Timer mailSend;
+    private final Counter mailSent;
+    private final Counter mailFailed;
+
+    private final Timer passwordQueueWait;
+    private final Timer passwordHash;
+    private final Counter passwordRejected;
+
+    private final Counter refreshTokenReused;
+
+    private final Map<String, Counter> rateLimitRejections = new ConcurrentHashMap<>();
+    private final Map<String, Timer> repositoryTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> replicaFallbacks = new ConcurrentHashMap<>();
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        expiredTokens = jwtFailureCounter("expired");
+        invalidSignatureTokens = jwtFailureCounter("invalid_signature");
+        malformedTokens = jwtFailureCounter("malformed");
+        otherInvalidTokens = jwtFailureCounter("other");
+
+        mailSend = registry.timer("sajauth.mail.send");
+        mailSent = registry.counter("sajauth.mail.messages", "result", "sent");
+        mailFailed = registry.counter("sajauth.mail.messages", "result", "failed");
+
+        passwordQueueWait = registry.timer("sajauth.password.queue.wait");
+        passwordHash = registry.timer("sajauth.password.hash");
+        passwordRejected = registry.counter("sajauth.password.rejected");
+
+        refreshTokenReused = registry.counter("sajauth.refresh.reused");
+    }
+
+    private Counter jwtFailureCounter(String type) {
+        return registry.counter("sajauth.jwt.parse.failures", "type", type);
+    }
+
+    public void jwtParseFailed(JwtException e) {
+        if (e instanceof ExpiredJwtException)
+            expiredTokens.increment();
+        else if (e instanceof SecurityException)
+            invalidSignatureTokens.increment();
+        else if (e instanceof MalformedJwtException)
+            malformedTokens.increment();
+        else
+            otherInvalidTokens.increment();
+    }
+
+    public void rateLimitRejected(String scope) {
+        rateLimitRejections.computeIfAbsent(scope,
+                s -> registry.counter("sajauth.ratelimit.rejected", "scope", s)).increment();
+    }
+
+    public void mailBatchSent(long durationNanos, int sent, int failed) {
+        mailSend.record(durationNanos, TimeUnit.NANOSECONDS);
+        mailSent.increment(sent);
+        mailFailed.increment(failed);
+    }
+
+    public void passwordHashed(long queueWaitNanos, long hashNanos) {
+        passwordQueueWait.record(queueWaitNanos, TimeUnit.NANOSECONDS);
+        passwordHash.record(hashNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void passwordHashingRejected() {
+        passwordRejected.increment();
+    }
+
+    // Refresh token présenté après sa rotation : session révoquée
+    public void refreshTokenReused() {
+        refreshTokenReused.increment();
+    }
+
+    public void tokensReaped(String table, long count) {
+        registry.counter("sajauth.reaper.reclaimed", "table", table).increment(count);
+    }
+
+    // Lectures renvoyées sur le primaire : compte absent du réplica, réplica en retard ou injoignable
+    public void replicaFallback(String reason) {
+        replicaFallbacks.computeIfAbsent(reason,
+                r -> registry.counter("sajauth.datasource.replica.fallbacks", "reason", r)).increment();
+    }
+
+    public Timer repositoryTimer(String repository, String method) {
+        return repositoryTimers.computeIfAbsent(repository + "." + method,
+                key -> registry.timer("sajauth.repository", "repository", repository, "method", method));
+    }
+}
@@ -0,0 +1,69 @@
+package com.ethereum.sajauth.metrics;
+
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import com.ethereum.sajauth.services.PasswordHashingExecutor;
+import com.ethereum.sajauth.services.UserAuthCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class MetricsConfig {
+
+    // p50 / p99 / p999 et histogramme pour les endpoints (http.server.requests) et les timers applicatifs
+    @Bean
+    public MeterFilter latencyPercentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() == Meter.Type.TIMER
+                        && (id.getName().startsWith("http.server.requests") || id.getName().startsWith("sajauth."))) {
+                    return DistributionStatisticConfig.builder()
+                            .percentiles(0.5, 0.99, 0.999)
+                            .percentilesHistogram(true)
+                            // Borne le nombre de buckets exportés par série
+                            .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                            .maximumExpectedValue((double) Duration.ofSeconds(10).toNanos())
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+
+    // Valeurs lues uniquement au scraping : aucun coût sur le chemin des requêtes
+    @Bean
+    public MeterBinder authCacheAndHashingMetrics(UserAuthCache userAuthCache, PasswordHashingExecutor passwordHashingExecutor) {
+        return registry -> {
+            FunctionCounter.builder("sajauth.auth.cache.requests", userAuthCache, UserAuthCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("sajauth.auth.cache.requests", userAuthCache, UserAuthCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("sajauth.auth.cache.evictions", userAuthCache, UserAuthCache::getEvictionCount)
+                    .register(registry);
+            Gauge.builder("sajauth.auth.cache.size", userAuthCache, UserAuthCache::size)
+                    .register(registry);
+            Gauge.builder("sajauth.password.queue.depth", passwordHashingExecutor, PasswordHashingExecutor::getQueueDepth)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder revocationMetrics(TokenRevocationService tokenRevocationService) {
+        return registry -> {
+            Gauge.builder("sajauth.revocation.size", tokenRevocationService, TokenRevocationService::size)
+                    .register(registry);
+            // Faux positifs du filtre de Bloom : à surveiller pour dimensionner app.revocation.bloom-bits
+            FunctionCounter.builder("sajauth.revocation.false.positives", tokenRevocationService, TokenRevocationService::getFalsePositiveCount)
+                    .register(registry);
+        };
+    }
+}
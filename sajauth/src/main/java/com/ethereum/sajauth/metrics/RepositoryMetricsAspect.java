@@ -0,0 +1,45 @@
+package com.ethereum.sajauth.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Durée de chaque appel de repository (une requête SQL ou plus), par repository et par méthode
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final AuthMetrics authMetrics;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(AuthMetrics authMetrics) {
+        this.authMetrics = authMetrics;
+    }
+
+    // Méthodes héritées comprises (save, findById... déclarées par CrudRepository) : le proxy est un Repository
+    @Around("this(org.springframework.data.repository.Repository) && execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            authMetrics.repositoryTimer(repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(), type -> repositoryName(joinPoint.getThis())), joinPoint.getSignature().getName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Interface de l'application implémentée par le proxy, pas l'interface Spring Data qui déclare la méthode
+    private static String repositoryName(Object repository) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(repository))
+            if (Repository.class.isAssignableFrom(type) && type.getPackageName().startsWith("com.ethereum.sajauth"))
+                return type.getSimpleName();
+        return repository.getClass().getSimpleName();
+    }
+}
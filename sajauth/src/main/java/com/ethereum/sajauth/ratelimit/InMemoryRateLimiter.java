@@ -0,0 +1,64 @@
+package com.ethereum.sajauth.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Implémentation locale sans verrou : une mise à jour par compare-and-set sur l'état de la clé
+@Component
+@ConditionalOnProperty(name = "app.ratelimit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, RateLimitPolicy policy) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong());
+        long interval = policy.emissionIntervalMillis();
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            long current = bucket.get();
+            long newTat = Math.max(current, now) + interval;
+            long wait = newTat - now - policy.periodMillis();
+
+            if (wait > 0)
+                return RateLimiter.toRetryAfterSeconds(wait);
+
+            if (bucket.compareAndSet(current, newTat))
+                return 0;
+        }
+    }
+
+    @Override
+    public long retryAfter(String key, RateLimitPolicy policy) {
+        AtomicLong bucket = buckets.get(key);
+
+        if (bucket == null)
+            return 0;
+
+        long now = System.currentTimeMillis();
+        long wait = Math.max(bucket.get(), now) + policy.emissionIntervalMillis() - now - policy.periodMillis();
+
+        return wait > 0 ? RateLimiter.toRetryAfterSeconds(wait) : 0;
+    }
+
+    @Override
+    public void reset(String key) {
+        buckets.remove(key);
+    }
+
+    // Un seau dont l'instant théorique est passé est plein : inutile de le garder en mémoire
+    @Scheduled(fixedDelayString = "${app.ratelimit.cleanup-ms:60000}")
+    public void removeFullBuckets() {
+        long now = System.currentTimeMillis();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() <= now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
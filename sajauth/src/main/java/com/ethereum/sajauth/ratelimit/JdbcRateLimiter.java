@@ -0,0 +1,63 @@
+package com.ethereum.sajauth.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Implémentation partagée entre instances : l'état est stocké dans la table rate_limit_bucket,
+// chaque consommation est un unique upsert conditionnel
+@Component
+@ConditionalOnProperty(name = "app.ratelimit.store", havingValue = "jdbc")
+public class JdbcRateLimiter implements RateLimiter {
+
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO rate_limit_bucket (bucket_key, tat) VALUES (?, ?)
+            ON CONFLICT (bucket_key) DO UPDATE
+                SET tat = GREATEST(rate_limit_bucket.tat, ?) + ?
+                WHERE GREATEST(rate_limit_bucket.tat, ?) + ? - ? <= ?
+            RETURNING tat
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcRateLimiter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimitPolicy policy) {
+        long now = System.currentTimeMillis();
+        long interval = policy.emissionIntervalMillis();
+
+        List<Long> accepted = jdbcTemplate.queryForList(ACQUIRE_SQL, Long.class,
+                key, now + interval, now, interval, now, interval, now, policy.periodMillis());
+
+        return accepted.isEmpty() ? retryAfter(key, policy) : 0;
+    }
+
+    @Override
+    public long retryAfter(String key, RateLimitPolicy policy) {
+        List<Long> tat = jdbcTemplate.queryForList("SELECT tat FROM rate_limit_bucket WHERE bucket_key = ?", Long.class, key);
+
+        if (tat.isEmpty())
+            return 0;
+
+        long now = System.currentTimeMillis();
+        long wait = Math.max(tat.get(0), now) + policy.emissionIntervalMillis() - now - policy.periodMillis();
+
+        return wait > 0 ? RateLimiter.toRetryAfterSeconds(wait) : 0;
+    }
+
+    @Override
+    public void reset(String key) {
+        jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE bucket_key = ?", key);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ratelimit.cleanup-ms:60000}")
+    public void removeFullBuckets() {
+        jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE tat <= ?", System.currentTimeMillis());
+    }
+}
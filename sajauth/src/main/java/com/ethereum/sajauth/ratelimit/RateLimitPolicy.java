@@ -0,0 +1,16 @@
+package com.ethereum.sajauth.ratelimit;
+
+import java.time.Duration;
+
+// capacity requêtes autorisées en rafale, rechargées en totalité sur period
+public record RateLimitPolicy(int capacity, Duration period) {
+
+    public long periodMillis() {
+        return period.toMillis();
+    }
+
+    // Intervalle entre deux jetons
+    public long emissionIntervalMillis() {
+        return Math.max(1, period.toMillis() / capacity);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ethereum.sajauth.ratelimit;
+
+// Seau à jetons (algorithme GCRA) : l'état d'une clé tient en un seul instant théorique d'arrivée
+public interface RateLimiter {
+
+    // Consomme un jeton. Retourne 0 si la requête est autorisée, sinon le nombre de secondes à attendre
+    long tryAcquire(String key, RateLimitPolicy policy);
+
+    // Même résultat que tryAcquire, sans consommer de jeton
+    long retryAfter(String key, RateLimitPolicy policy);
+
+    void reset(String key);
+
+    static long toRetryAfterSeconds(long waitMillis) {
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+}
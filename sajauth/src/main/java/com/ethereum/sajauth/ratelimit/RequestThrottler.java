@@ -0,0 +1,103 @@
+package com.ethereum.sajauth.ratelimit;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Limitation globale des requêtes par IP, appliquée avant toute vérification de JWT, puis par compte une fois la signature
+// du token vérifiée (un en-tête non vérifié permettrait de créer autant de compteurs que voulu).
+// Toujours locale à l'instance : un aller-retour vers un stockage partagé coûterait plus que la requête elle-même
+@Component
+public class RequestThrottler {
+
+    // Règles "motif=capacité/secondes" séparées par des virgules, la première qui correspond s'applique
+    @Value("${app.ratelimit.routes:/api/v1/auth/**=30/60,/**=600/60}")
+    private String routes;
+
+    @Value("${app.ratelimit.requests.enabled:true}")
+    private boolean enabled;
+
+    // Services internes (ex. le service Nest qui valide les tokens de tous les utilisateurs) : limités par compte uniquement.
+    // Vide par défaut : derrière un reverse proxy local, localhost couvrirait tout le trafic
+    @Value("${app.ratelimit.trusted-ips:}")
+    private Set<String> trustedIps;
+
+    private final InMemoryRateLimiter rateLimiter = new InMemoryRateLimiter();
+    private final List<RouteRule> rules = new ArrayList<>();
+    private final AuthMetrics authMetrics;
+
+    private record RouteRule(String name, PathPattern pattern, RateLimitPolicy policy) {
+    }
+
+    public RequestThrottler(AuthMetrics authMetrics) {
+        this.authMetrics = authMetrics;
+    }
+
+    @PostConstruct
+    void parseRoutes() {
+        for (String route : routes.split(",")) {
+            String[] parts = route.trim().split("=");
+            String[] limit = parts[1].split("/");
+
+            rules.add(new RouteRule(
+                    parts[0],
+                    PathPatternParser.defaultInstance.parse(parts[0]),
+                    new RateLimitPolicy(Integer.parseInt(limit[0]), Duration.ofSeconds(Long.parseLong(limit[1])))));
+        }
+    }
+
+    // Secondes d'attente imposées au client, 0 si la requête peut passer
+    public long check(HttpServletRequest request) {
+        return check(request.getRequestURI(), request.getRemoteAddr());
+    }
+
+    // Sans dépendance à l'API servlet : partagé avec le WebFilter de la variante réactive
+    public long check(String uri, String clientIp) {
+        RouteRule rule = enabled ? findRule(uri) : null;
+        if (rule == null || trustedIps.contains(clientIp))
+            return 0;
+
+        long ipWait = rateLimiter.tryAcquire(rule.name() + "|ip:" + clientIp, rule.policy());
+        if (ipWait > 0)
+            authMetrics.rateLimitRejected("ip");
+        return ipWait;
+    }
+
+    // Sujet (email) d'un token dont la signature a été vérifiée : un compte par compteur, quelle que soit l'IP
+    public long checkAccount(String uri, String subject) {
+        RouteRule rule = enabled && subject != null ? findRule(uri) : null;
+        if (rule == null)
+            return 0;
+
+        long accountWait = rateLimiter.tryAcquire(rule.name() + "|sub:" + subject, rule.policy());
+        if (accountWait > 0)
+            authMetrics.rateLimitRejected("account");
+        return accountWait;
+    }
+
+    private RouteRule findRule(String uri) {
+        PathContainer path = PathContainer.parsePath(uri);
+
+        for (RouteRule rule : rules) {
+            if (rule.pattern().matches(path))
+                return rule;
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ratelimit.cleanup-ms:60000}")
+    public void removeFullBuckets() {
+        rateLimiter.removeFullBuckets();
+    }
+}
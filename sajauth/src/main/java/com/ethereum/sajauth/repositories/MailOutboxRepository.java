@@ -0,0 +1,39 @@
+package com.ethereum.sajauth.repositories;
+
+import com.ethereum.sajauth.entities.MailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+    // Déduplication par destinataire en une requête : l'email en attente (index unique partiel) reçoit le dernier token
+    @Modifying
+    @Query(value = """
+            INSERT INTO mail_outbox (recipient, username, mail_type, token, status, attempts, next_attempt_at, created_at)
+            VALUES (:recipient, :username, :mailType, :token, 'PENDING', 0, :now, :now)
+            ON CONFLICT (recipient, mail_type) WHERE status = 'PENDING' DO UPDATE
+                SET username = EXCLUDED.username, token = EXCLUDED.token, attempts = 0, next_attempt_at = EXCLUDED.next_attempt_at
+            """, nativeQuery = true)
+    int upsertPending(@Param("recipient") String recipient, @Param("username") String username, @Param("mailType") String mailType,
+                      @Param("token") String token, @Param("now") LocalDateTime now);
+
+    // SKIP LOCKED : plusieurs instances peuvent vider la file sans se bloquer ni envoyer deux fois
+    @Query(value = """
+            SELECT * FROM mail_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<MailOutbox> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Sans effet si le token a été remplacé pendant l'envoi : le nouvel email reste à envoyer
+    @Modifying
+    @Query("update MailOutbox m set m.status = com.ethereum.sajauth.enums.MailOutboxStatusEnum.SENT, m.token = null, m.lastError = null " +
+            "where m.id = :id and m.token = :token")
+    int markSent(@Param("id") Long id, @Param("token") String token);
+}
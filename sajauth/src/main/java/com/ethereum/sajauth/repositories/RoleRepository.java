@@ -1,9 +1,15 @@
 package com.ethereum.sajauth.repositories;
 
 import com.ethereum.sajauth.entities.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import java.util.Optional;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    // Nom unique (uk_roles_name). Résultat mis en cache quand le cache de requêtes est activé (profil prod)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByName(String name);
 }
@@ -0,0 +1,23 @@
+package com.ethereum.sajauth.repositories;
+
+import com.ethereum.sajauth.entities.SigningKey;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+
+    boolean existsByActivatesAt(Instant activatesAt);
+
+    List<SigningKey> findByRetiresAtAfter(Instant retiresAfter);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SigningKey k where k.retiresAt < :retiredBefore")
+    int deleteRetiredBefore(@Param("retiredBefore") Instant retiredBefore);
+}
@@ -1,12 +1,34 @@
 package com.ethereum.sajauth.repositories;
 
+import com.ethereum.sajauth.DTO.UserAuthState;
 import com.ethereum.sajauth.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+// Lectures en transaction lecture seule, servies par le réplica s'il est configuré (ReplicaRoutingDataSource) :
+// contrairement aux méthodes héritées de JpaRepository, les requêtes déclarées ici n'en ont pas par défaut
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
+
+    @Transactional(readOnly = true)
     boolean existsByEmail(String email);
-    Optional<User> findByVerificationToken(String token);
+
+    // Etat d'authentification en une seule requête, sans hydrater l'entité ni charger le rôle à part
+    @Transactional(readOnly = true)
+    @Query("select new com.ethereum.sajauth.DTO.UserAuthState(u.id, u.email, u.password, r.name, u.enabled) " +
+            "from User u left join u.role r where u.email = :email")
+    Optional<UserAuthState> findAuthStateByEmail(@Param("email") String email);
+
+    // Introspection groupée : tous les sujets d'un lot en une requête
+    @Transactional(readOnly = true)
+    @Query("select new com.ethereum.sajauth.DTO.UserAuthState(u.id, u.email, u.password, r.name, u.enabled) " +
+            "from User u left join u.role r where u.email in :emails")
+    List<UserAuthState> findAuthStatesByEmailIn(@Param("emails") Collection<String> emails);
 }
@@ -1,15 +1,45 @@
 package com.ethereum.sajauth.repositories;
 
-import com.ethereum.sajauth.entities.User;
 import com.ethereum.sajauth.entities.UserToken;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import javax.swing.text.html.Option;
 import java.util.Optional;
 
 public interface UserTokenRepository extends JpaRepository<UserToken, Long> {
+    Optional<UserToken> findByTokenHash(byte[] tokenHash);
+
+    // Session dont c'est le token courant, ou le token remplacé par la dernière rotation, lue avec son compte
+    // (et son rôle, chargé sinon par une seconde requête) en une seule requête
+    @Query("select t from UserToken t join fetch t.user u left join fetch u.role where t.tokenHash = :tokenHash or t.previousTokenHash = :tokenHash")
+    Optional<UserToken> findByCurrentOrPreviousTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    // Session antérieure à l'empreinte HMAC, cherchée parmi celles de l'utilisateur du token (index user_id) :
+    // refresh_token n'est pas indexé et cette lecture suit chaque empreinte inconnue
+    @Query("select t from UserToken t join fetch t.user u left join fetch u.role where u.id = :userId and t.refreshToken = :refreshToken")
+    Optional<UserToken> findByUserIdAndRefreshToken(@Param("userId") Long userId, @Param("refreshToken") String refreshToken);
+
+    // Suppression en une seule requête, sans charger les lignes (réinitialisation du mot de passe)
+    @Transactional
+    @Modifying
+    @Query("delete from UserToken t where t.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    // Déconnexion d'un appareil, ou réutilisation d'un refresh token déjà remplacé
+    @Transactional
+    @Modifying
+    @Query("delete from UserToken t where t.sessionId = :sessionId and t.user.id = :userId")
+    int deleteBySessionId(@Param("sessionId") String sessionId, @Param("userId") Long userId);
+
+    // Garde les maxSessions sessions les plus récemment utilisées, en une requête (index user_id, last_used_at)
     @Transactional
-    void deleteByUser(User user);
-    Optional<UserToken> findByRefreshTokenAndUser(String refreshToken, User user);
+    @Modifying
+    @Query(value = """
+            DELETE FROM user_token WHERE user_id = :userId AND id NOT IN (
+                SELECT id FROM user_token WHERE user_id = :userId ORDER BY last_used_at DESC, id DESC LIMIT :maxSessions)
+            """, nativeQuery = true)
+    int evictLeastRecentlyUsed(@Param("userId") Long userId, @Param("maxSessions") int maxSessions);
 }
@@ -0,0 +1,30 @@
+package com.ethereum.sajauth.repositories;
+
+import com.ethereum.sajauth.entities.VerificationToken;
+import com.ethereum.sajauth.enums.MailTypeEnum;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface VerificationTokenRepository extends JpaRepository<VerificationToken, Long> {
+
+    // Consommation atomique par l'index unique de l'empreinte : le token est supprimé et son utilisateur renvoyé
+    // en une seule requête, un second appel concurrent ne trouve plus rien.
+    // Sans @Modifying : executeUpdate ne renverrait que le nombre de lignes, pas le RETURNING.
+    // Aucune entité VerificationToken n'est chargée avant l'appel, le contexte de persistance reste cohérent
+    @Query(value = """
+            DELETE FROM verification_token
+            WHERE token_hash = :tokenHash AND mail_type = :mailType AND expires_at > :now
+            RETURNING user_id
+            """, nativeQuery = true)
+    Optional<Long> consume(@Param("tokenHash") byte[] tokenHash, @Param("mailType") String mailType, @Param("now") LocalDateTime now);
+
+    // Les autres tokens du même type deviennent inutiles une fois l'un d'eux utilisé
+    @Modifying
+    @Query("delete from VerificationToken t where t.user.id = :userId and t.type = :type")
+    int deleteAllByUserIdAndType(@Param("userId") Long userId, @Param("type") MailTypeEnum type);
+}
@@ -0,0 +1,116 @@
+package com.ethereum.sajauth.revocation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Filtre de Bloom des jti révoqués, découpé par minute d'expiration des tokens : un token n'est cherché
+// que dans le segment de sa minute, et un segment disparaît en bloc une fois sa minute passée.
+// Pas de faux négatif ; un faux positif est écarté par l'ensemble exact de TokenRevocationService.
+// Vérification sans verrou ni allocation, segments alloués à la première révocation de leur minute
+public class RevokedTokenFilter {
+
+    static final long SEGMENT_MILLIS = 60_000;
+    private static final int HASHES = 5;
+
+    private final AtomicReferenceArray<Segment> segments;
+    private final int words;
+    private final long bitMask;
+
+    private record Segment(long minute, AtomicLongArray bits) {
+    }
+
+    // horizonMillis : durée de vie maximale d'un token ; bitsPerSegment arrondi à une puissance de 2
+    public RevokedTokenFilter(long horizonMillis, int bitsPerSegment) {
+        int bits = Integer.highestOneBit(Math.max(bitsPerSegment - 1, 63)) << 1;
+        this.words = bits / 64;
+        this.bitMask = bits - 1;
+        // Anneau d'une minute par case couvrant toute la durée de vie : une case n'est réutilisée
+        // que par une minute postérieure à l'expiration de tous les tokens de la précédente
+        this.segments = new AtomicReferenceArray<>((int) (horizonMillis / SEGMENT_MILLIS) + 2);
+    }
+
+    public void add(String jti, long expiresAtMillis) {
+        long minute = expiresAtMillis / SEGMENT_MILLIS;
+        int slot = slot(minute);
+
+        Segment segment = segments.get(slot);
+        while (segment == null || segment.minute() < minute) {
+            Segment fresh = new Segment(minute, new AtomicLongArray(words));
+            if (segments.compareAndSet(slot, segment, fresh)) {
+                segment = fresh;
+                break;
+            }
+            segment = segments.get(slot);
+        }
+        if (segment.minute() != minute)
+            return; // token déjà expiré depuis plus longtemps que l'horizon
+
+        long h1 = hash(jti, 0x9E3779B97F4A7C15L);
+        long h2 = hash(jti, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            setBit(segment.bits(), (int) (bit >>> 6), 1L << bit);
+        }
+    }
+
+    public boolean mightContain(String jti, long expiresAtMillis) {
+        long minute = expiresAtMillis / SEGMENT_MILLIS;
+        Segment segment = segments.get(slot(minute));
+        if (segment == null || segment.minute() != minute)
+            return false;
+
+        long h1 = hash(jti, 0x9E3779B97F4A7C15L);
+        long h2 = hash(jti, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if ((segment.bits().get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    // Libère les segments des minutes écoulées sans attendre la réutilisation de leur case
+    public void expire(long nowMillis) {
+        long currentMinute = nowMillis / SEGMENT_MILLIS;
+        for (int slot = 0; slot < segments.length(); slot++) {
+            Segment segment = segments.get(slot);
+            if (segment != null && segment.minute() < currentMinute)
+                segments.compareAndSet(slot, segment, null);
+        }
+    }
+
+    int allocatedSegments() {
+        int allocated = 0;
+        for (int slot = 0; slot < segments.length(); slot++)
+            if (segments.get(slot) != null)
+                allocated++;
+        return allocated;
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) segments.length());
+    }
+
+    private static void setBit(AtomicLongArray bits, int word, long mask) {
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0)
+                return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    // FNV-1a sur les caractères puis finaliseur de MurmurHash3 : aucune conversion en octets
+    private static long hash(String value, long seed) {
+        long h = seed;
+        for (int i = 0; i < value.length(); i++)
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,133 @@
+package com.ethereum.sajauth.revocation;
+
+import com.ethereum.sajauth.DTO.RevokedTokenResponse;
+import com.ethereum.sajauth.JwtUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Révocation immédiate des tokens par leur jti (déconnexion).
+// Chemin courant (JwtFilter) : un test du filtre de Bloom en mémoire, sans requête. Seul un résultat positif
+// consulte l'ensemble exact. Les révocations sont écrites dans revoked_token et relues par les autres instances
+// toutes les app.revocation.poll-ms ; chaque entrée disparaît à l'expiration de son token.
+@Service
+public class TokenRevocationService {
+
+    // Marge de relecture : une révocation datée juste avant la précédente lecture mais validée après reste vue
+    private static final long POLL_OVERLAP_MILLIS = 10_000;
+
+    private static final String INSERT_SQL = "INSERT INTO revoked_token (jti, expires_at, revoked_at) VALUES (?, ?, CURRENT_TIMESTAMP)";
+    private static final String SELECT_SQL = """
+            SELECT jti, expires_at, revoked_at FROM revoked_token
+            WHERE revoked_at >= ? AND expires_at > ?
+            """;
+
+    @Value("${app.revocation.bloom-bits:65536}") // par minute d'expiration ayant au moins une révocation
+    private int bloomBits;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtUtil jwtUtil;
+
+    private RevokedTokenFilter filter;
+    // jti -> expiration du token, en millisecondes
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile long lastRevokedAt;
+    private final LongAdder falsePositives = new LongAdder();
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate, JwtUtil jwtUtil) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @PostConstruct
+    void init() {
+        createFilter();
+        poll(); // révocations en cours au démarrage
+    }
+
+    void createFilter() {
+        filter = new RevokedTokenFilter(jwtUtil.maxTokenLifetimeMillis(), bloomBits);
+    }
+
+    // Tokens émis avant l'ajout du jti : non révocables, ils expirent d'eux-mêmes
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+
+        if (jti == null || expiration == null || !filter.mightContain(jti, expiration.getTime()))
+            return false;
+
+        if (revoked.containsKey(jti))
+            return true;
+        falsePositives.increment();
+        return false;
+    }
+
+    // Effet immédiat sur cette instance, au plus app.revocation.poll-ms plus tard sur les autres
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (jti == null || expiration == null || expiration.getTime() <= System.currentTimeMillis())
+            return;
+
+        add(jti, expiration.getTime());
+        try {
+            jdbcTemplate.update(INSERT_SQL, jti, new Timestamp(expiration.getTime()));
+        } catch (DuplicateKeyException e) {
+            // Déjà révoqué
+        }
+    }
+
+    private void add(String jti, long expiresAtMillis) {
+        // Ensemble exact d'abord : un test concurrent qui voit le filtre positif trouve l'entrée
+        revoked.put(jti, expiresAtMillis);
+        filter.add(jti, expiresAtMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${app.revocation.poll-ms:1000}")
+    public void poll() {
+        long since = lastRevokedAt - POLL_OVERLAP_MILLIS;
+        long[] newest = {lastRevokedAt};
+
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            add(rs.getString(1), rs.getTimestamp(2).getTime());
+            newest[0] = Math.max(newest[0], rs.getTimestamp(3).getTime());
+        }, new Timestamp(since), new Timestamp(System.currentTimeMillis()));
+
+        lastRevokedAt = newest[0];
+    }
+
+    // Révocations enregistrées depuis sinceMillis et pas encore expirées, pour les consommateurs qui vérifient
+    // les tokens eux-mêmes (AuthGuard de l'API Nest) : relues comme poll(), avec la même marge côté appelant
+    public List<RevokedTokenResponse> revokedSince(long sinceMillis) {
+        return jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new RevokedTokenResponse(rs.getString(1), rs.getTimestamp(2).getTime(), rs.getTimestamp(3).getTime()),
+                new Timestamp(sinceMillis), new Timestamp(System.currentTimeMillis()));
+    }
+
+    // Les lignes expirées de revoked_token sont supprimées par ExpiredTokenReaper
+    @Scheduled(fixedDelayString = "${app.revocation.cleanup-ms:60000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        filter.expire(now);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+}
@@ -1,14 +1,24 @@
 package com.ethereum.sajauth.services;
 
+import com.ethereum.sajauth.entities.MailOutbox;
 import com.ethereum.sajauth.entities.User;
 import com.ethereum.sajauth.enums.MailTypeEnum;
-import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class EmailService {
 
@@ -20,92 +30,79 @@ public class EmailService {
 
     private final JavaMailSender emailSender;
     private final VerificationTokenService verificationTokenService;
-    private final UserRepository userRepository;
+    private final UserService userService;
+    private final MailOutboxService mailOutboxService;
+    private final MailTemplateService mailTemplateService;
+    private final AuthMetrics authMetrics;
 
-    public EmailService(JavaMailSender emailSender, VerificationTokenService verificationTokenService, UserRepository userRepository) {
+    public EmailService(JavaMailSender emailSender, VerificationTokenService verificationTokenService, UserService userService,
+                        MailOutboxService mailOutboxService, MailTemplateService mailTemplateService, AuthMetrics authMetrics) {
         this.emailSender = emailSender;
         this.verificationTokenService = verificationTokenService;
-        this.userRepository = userRepository;
+        this.userService = userService;
+        this.mailOutboxService = mailOutboxService;
+        this.mailTemplateService = mailTemplateService;
+        this.authMetrics = authMetrics;
     }
 
-    public void sendEmail(User user, String mailType) throws MailException {
-        verificationTokenService.createVerificationToken(user, mailType);
-
-        if (MailTypeEnum.MAIL_CONFIRMATION.getMailType().equals(mailType))
-            sendVerificationEmail(user, user.getVerificationToken());
-        else if (MailTypeEnum.RESET_PWD.getMailType().equals(mailType))
-            sendResetPasswordEmail(user, user.getVerificationToken());
+    // Le token et l'email à envoyer sont écrits dans la même transaction, l'envoi SMTP est fait par MailOutboxWorker
+    @Transactional
+    public void queueEmail(User user, String mailType) {
+        // Inscription : l'utilisateur est créé dans la même transaction que son token et son email
+        if (user.getId() == null)
+            userService.saveNewUser(user);
 
-        userRepository.save(user);
+        String token = verificationTokenService.createVerificationToken(user, mailType);
+        mailOutboxService.enqueue(user, mailType, token);
     }
 
-    public void sendVerificationEmail(User user, String token) throws MailException {
-        String verificationUrl = frontendUrl + "/verify-email/" + token;
-
-        String emailContent = """
-            <html>
-            <body style="font-family: Arial, sans-serif; padding: 20px;">
-                <h2 style="color: #333;">Bienvenue sur notre plateforme !</h2>
-                <p>Bonjour %s,</p>
-                <p>Merci de vous être inscrit. Pour activer votre compte, veuillez cliquer sur le bouton ci-dessous :</p>
-                <div style="margin: 30px 0;">
-                    <a href="%s"
-                       style="background-color: #4CAF50;
-                              color: white;
-                              padding: 12px 25px;
-                              text-decoration: none;
-                              border-radius: 4px;">
-                        Confirmer mon compte
-                    </a>
-                </div>
-                <p>Ce lien est valable pendant 24 heures.</p>
-                <p>Si vous n'avez pas créé de compte, vous pouvez ignorer cet email.</p>
-                <p>Cordialement,<br>L'équipe</p>
-            </body>
-            </html>
-            """.formatted(user.getUsername(), verificationUrl);
-
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(user.getEmail());
-        message.setSubject("Confirmation de votre compte");
-        message.setText(emailContent);
-
-        emailSender.send(message);
+    // Envoi groupé : les messages sont rendus dans un même buffer puis envoyés sur une seule connexion SMTP.
+    // Retourne les emails en échec avec leur erreur
+    public Map<MailOutbox, Exception> deliver(List<MailOutbox> mails) {
+        Map<MailOutbox, Exception> failures = new HashMap<>();
+        Map<MimeMessage, MailOutbox> messages = new LinkedHashMap<>();
+        StringBuilder buffer = new StringBuilder(4096);
+
+        for (MailOutbox mail : mails) {
+            try {
+                messages.put(createMessage(mail, buffer), mail);
+            } catch (MessagingException | IllegalArgumentException e) {
+                failures.put(mail, e);
+            }
+        }
+
+        if (messages.isEmpty())
+            return failures;
+
+        long start = System.nanoTime();
+        try {
+            emailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty())
+                messages.values().forEach(mail -> failures.put(mail, e));
+            else
+                e.getFailedMessages().forEach((message, error) -> failures.put(messages.get(message), error));
+        } catch (MailException e) {
+            messages.values().forEach(mail -> failures.put(mail, e));
+        }
+        authMetrics.mailBatchSent(System.nanoTime() - start, mails.size() - failures.size(), failures.size());
+
+        return failures;
     }
 
-    public void sendResetPasswordEmail(User user, String token) throws MailException {
-        String resetPasswordUrl = frontendUrl + "/reset-password/" + token;
-
-        String emailContent = """
-            <html>
-            <body style="font-family: Arial, sans-serif; padding: 20px;">
-                <h2 style="color: #333;">Réinitialiser votre mot de passe</h2>
-                <p>Bonjour %s,</p>
-                <p>Pour réinitialiser votre mot de passe, veuillez cliquer sur le bouton ci-dessous :</p>
-                <div style="margin: 30px 0;">
-                    <a href="%s"
-                       style="background-color: #4CAF50;
-                              color: white;
-                              padding: 12px 25px;
-                              text-decoration: none;
-                              border-radius: 4px;">
-                        Réinitialiser votre mot de passe
-                    </a>
-                </div>
-                <p>Ce lien est valable pendant 10 minutes</p>
-                <p>Si vous n'avez pas déclaré vouloir changer de mot de passe, vous pouvez ignorer cet email.</p>
-                <p>Cordialement,<br>L'équipe</p>
-            </body>
-            </html>
-            """.formatted(user.getUsername(), resetPasswordUrl);
-
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(user.getEmail());
-        message.setSubject("Réinitialiser votre mot de passe");
-        message.setText(emailContent);
-
-        emailSender.send(message);
+    private MimeMessage createMessage(MailOutbox mail, StringBuilder buffer) throws MessagingException {
+        MailTypeEnum type = MailTypeEnum.fromMailType(mail.getMailType());
+        String url = frontendUrl + type.getFrontendPath() + mail.getToken();
+
+        MimeMessage message = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8"); // multipart texte + HTML
+        helper.setFrom(fromEmail);
+        helper.setTo(mail.getRecipient());
+        helper.setSubject(type.getSubject());
+        helper.setText(
+                mailTemplateService.renderText(type, buffer, mail.getUsername(), url),
+                mailTemplateService.renderHtml(type, buffer, mail.getUsername(), url));
+
+        return message;
     }
 }
@@ -0,0 +1,164 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Purge des refresh tokens, des tokens de vérification et des révocations expirés, par lots courts.
+// Pagination par clé (date d'expiration, id) : chaque lot reprend après le précédent sans relire les lignes déjà traitées
+@Component
+public class ExpiredTokenReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiredTokenReaper.class);
+
+    // Verrou consultatif PostgreSQL partagé par toutes les instances
+    private static final long ADVISORY_LOCK_KEY = 0x5A4A_7265_6170L;
+
+    private static final String SELECT_EXPIRED_USER_TOKENS = """
+            SELECT id, expiration_date FROM user_token
+            WHERE expiration_date < ? AND (expiration_date, id) > (?, ?)
+            ORDER BY expiration_date, id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String DELETE_USER_TOKENS = "DELETE FROM user_token WHERE id IN (:ids)";
+
+    private static final String SELECT_EXPIRED_VERIFICATION_TOKENS = """
+            SELECT id, expires_at FROM verification_token
+            WHERE expires_at < ? AND (expires_at, id) > (?, ?)
+            ORDER BY expires_at, id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String DELETE_VERIFICATION_TOKENS = "DELETE FROM verification_token WHERE id IN (:ids)";
+
+    private static final String SELECT_EXPIRED_REVOKED_TOKENS = """
+            SELECT id, expires_at FROM revoked_token
+            WHERE expires_at < ? AND (expires_at, id) > (?, ?)
+            ORDER BY expires_at, id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String DELETE_REVOKED_TOKENS = "DELETE FROM revoked_token WHERE id IN (:ids)";
+
+    @Value("${app.reaper.batch-size:500}")
+    private int batchSize;
+
+    // Désactivable pour une base sans pg_try_advisory_lock (tests sur base embarquée)
+    @Value("${app.reaper.advisory-lock:true}")
+    private boolean advisoryLock;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuthMetrics authMetrics;
+
+    public record ReapReport(long refreshTokens, long verificationTokens, long revokedTokens) {
+    }
+
+    private record Batch(int size, Timestamp lastExpiry, long lastId) {
+    }
+
+    public ExpiredTokenReaper(DataSource dataSource, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              AuthMetrics authMetrics) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.authMetrics = authMetrics;
+    }
+
+    @Scheduled(initialDelayString = "${app.reaper.initial-delay-ms:60000}", fixedDelayString = "${app.reaper.interval-ms:600000}")
+    public void scheduledReap() throws SQLException {
+        if (!advisoryLock) {
+            report(reap());
+            return;
+        }
+
+        // Verrou de session sur une connexion dédiée : libéré par le unlock, ou par la fermeture de la connexion si l'instance s'arrête
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!tryLock(lockConnection, "SELECT pg_try_advisory_lock(?)"))
+                return; // une autre instance purge déjà
+
+            try {
+                report(reap());
+            } finally {
+                tryLock(lockConnection, "SELECT pg_advisory_unlock(?)");
+            }
+        }
+    }
+
+    public ReapReport reap() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        return new ReapReport(
+                reapInBatches(SELECT_EXPIRED_USER_TOKENS, DELETE_USER_TOKENS, now),
+                reapInBatches(SELECT_EXPIRED_VERIFICATION_TOKENS, DELETE_VERIFICATION_TOKENS, now),
+                reapInBatches(SELECT_EXPIRED_REVOKED_TOKENS, DELETE_REVOKED_TOKENS, now));
+    }
+
+    // Une transaction par lot : les verrous de ligne ne sont tenus que le temps d'un lot
+    private long reapInBatches(String selectSql, String reapSql, Timestamp now) {
+        long reclaimed = 0;
+        Batch batch = new Batch(0, new Timestamp(0), 0);
+
+        do {
+            Batch previous = batch;
+            batch = transactionTemplate.execute(status -> {
+                List<Long> ids = new ArrayList<>(batchSize);
+                Timestamp[] lastExpiry = {previous.lastExpiry()};
+
+                jdbcTemplate.query(selectSql, rs -> {
+                    ids.add(rs.getLong(1));
+                    lastExpiry[0] = rs.getTimestamp(2);
+                }, now, previous.lastExpiry(), previous.lastId(), batchSize);
+
+                if (ids.isEmpty())
+                    return new Batch(0, previous.lastExpiry(), previous.lastId());
+
+                namedJdbcTemplate.update(reapSql, Map.of("ids", ids));
+                return new Batch(ids.size(), lastExpiry[0], ids.get(ids.size() - 1));
+            });
+            reclaimed += batch.size();
+        } while (batch.size() == batchSize);
+
+        return reclaimed;
+    }
+
+    private boolean tryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void report(ReapReport report) {
+        authMetrics.tokensReaped("user_token", report.refreshTokens());
+        authMetrics.tokensReaped("verification_token", report.verificationTokens());
+        authMetrics.tokensReaped("revoked_token", report.revokedTokens());
+
+        if (report.refreshTokens() > 0 || report.verificationTokens() > 0 || report.revokedTokens() > 0)
+            log.info("Purge : {} refresh tokens, {} tokens de vérification et {} révocations expirés supprimés",
+                    report.refreshTokens(), report.verificationTokens(), report.revokedTokens());
+    }
+}
@@ -0,0 +1,69 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.ratelimit.RateLimitPolicy;
+import com.ethereum.sajauth.ratelimit.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+// Limitation des échecs de connexion par email et par IP, sans écriture en base à chaque échec
+@Service
+public class LoginAttemptService {
+
+    @Value("${app.login.max-attempts:5}")
+    private int maxAttemptsPerEmail;
+
+    @Value("${app.login.ip.max-attempts:50}")
+    private int maxAttemptsPerIp;
+
+    @Value("${app.login.timeout.minutes:5}")
+    private int loginTimeoutMinutes;
+
+    private final RateLimiter rateLimiter;
+    private final AuthMetrics authMetrics;
+    private RateLimitPolicy emailPolicy;
+    private RateLimitPolicy ipPolicy;
+
+    public LoginAttemptService(RateLimiter rateLimiter, AuthMetrics authMetrics) {
+        this.rateLimiter = rateLimiter;
+        this.authMetrics = authMetrics;
+    }
+
+    @PostConstruct
+    void buildPolicies() {
+        emailPolicy = new RateLimitPolicy(maxAttemptsPerEmail, Duration.ofMinutes(loginTimeoutMinutes));
+        ipPolicy = new RateLimitPolicy(maxAttemptsPerIp, Duration.ofMinutes(loginTimeoutMinutes));
+    }
+
+    // Secondes d'attente avant une nouvelle tentative, 0 si la connexion peut être tentée
+    public long retryAfter(String email, String clientIp) {
+        long wait = Math.max(
+                rateLimiter.retryAfter(emailKey(email), emailPolicy),
+                rateLimiter.retryAfter(ipKey(clientIp), ipPolicy));
+        if (wait > 0)
+            authMetrics.rateLimitRejected("login");
+        return wait;
+    }
+
+    public long loginFailed(String email, String clientIp) {
+        long emailWait = rateLimiter.tryAcquire(emailKey(email), emailPolicy);
+        long ipWait = rateLimiter.tryAcquire(ipKey(clientIp), ipPolicy);
+
+        return Math.max(emailWait, ipWait) > 0 ? Math.max(emailWait, ipWait) : retryAfter(email, clientIp);
+    }
+
+    public void loginSucceeded(String email) {
+        rateLimiter.reset(emailKey(email));
+    }
+
+    private String emailKey(String email) {
+        return "login:email:" + email;
+    }
+
+    private String ipKey(String clientIp) {
+        return "login:ip:" + clientIp;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.entities.MailOutbox;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.enums.MailOutboxStatusEnum;
+import com.ethereum.sajauth.repositories.MailOutboxRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class MailOutboxService {
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoff.seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${app.mail.outbox.max-backoff.seconds:3600}")
+    private long maxBackoffSeconds;
+
+    // Délai après lequel un email réservé mais jamais confirmé (instance arrêtée pendant l'envoi) est repris
+    @Value("${app.mail.outbox.lease.seconds:120}")
+    private long leaseSeconds;
+
+    private final MailOutboxRepository mailOutboxRepository;
+
+    public MailOutboxService(MailOutboxRepository mailOutboxRepository) {
+        this.mailOutboxRepository = mailOutboxRepository;
+    }
+
+    @Transactional
+    public void enqueue(User user, String mailType, String token) {
+        // Déduplication par destinataire : un seul email en attente par type, portant le dernier token (brut, pour le lien).
+        // Upsert atomique : deux envois simultanés ne créent pas deux emails
+        mailOutboxRepository.upsertPending(user.getEmail(), user.getUsername(), mailType, token, LocalDateTime.now());
+    }
+
+    @Transactional
+    public List<MailOutbox> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MailOutbox> batch = mailOutboxRepository.lockDueBatch(now, limit);
+
+        batch.forEach(mail -> {
+            mail.setAttempts(mail.getAttempts() + 1);
+            mail.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+        });
+
+        return batch;
+    }
+
+    @Transactional
+    public void markSent(MailOutbox mail) {
+        mailOutboxRepository.markSent(mail.getId(), mail.getToken());
+    }
+
+    @Transactional
+    public void markFailed(MailOutbox mail, Exception e) {
+        mailOutboxRepository.findById(mail.getId()).ifPresent(current -> {
+            // Token remplacé pendant l'envoi : l'email a déjà été replanifié par enqueue
+            if (!Objects.equals(current.getToken(), mail.getToken()))
+                return;
+
+            String error = String.valueOf(e.getMessage());
+            current.setLastError(error.length() > 512 ? error.substring(0, 512) : error);
+
+            // Abandon : le token brut n'a plus de raison d'être conservé
+            if (current.getAttempts() >= maxAttempts) {
+                current.setStatus(MailOutboxStatusEnum.FAILED);
+                current.setToken(null);
+            } else
+                current.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff(current.getAttempts())));
+        });
+    }
+
+    // Backoff exponentiel : 30s, 1min, 2min... plafonné
+    private long backoff(int attempts) {
+        long delay = backoffSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffSeconds);
+    }
+}
@@ -0,0 +1,78 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.entities.MailOutbox;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+@Component
+public class MailOutboxWorker {
+
+    @Value("${app.mail.outbox.workers:4}")
+    private int workers;
+
+    @Value("${app.mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    private final MailOutboxService mailOutboxService;
+    private final EmailService emailService;
+    private ExecutorService executor;
+
+    public MailOutboxWorker(MailOutboxService mailOutboxService, EmailService emailService) {
+        this.mailOutboxService = mailOutboxService;
+        this.emailService = emailService;
+    }
+
+    @PostConstruct
+    void startExecutor() {
+        // Pool borné : le nombre de connexions SMTP simultanées ne dépend pas du trafic.
+        // Threads plateforme même en mode virtuel : SMTPTransport.sendMessage est synchronized et bloquerait le carrier
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-ms:2000}")
+    public void drain() {
+        List<MailOutbox> batch;
+
+        do {
+            batch = mailOutboxService.claimBatch(batchSize);
+
+            // Un lot par worker : chaque lot réutilise sa connexion SMTP
+            List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+            int chunkSize = Math.max(1, (batch.size() + workers - 1) / workers);
+
+            for (int i = 0; i < batch.size(); i += chunkSize) {
+                List<MailOutbox> chunk = batch.subList(i, Math.min(i + chunkSize, batch.size()));
+                deliveries.add(CompletableFuture.runAsync(() -> deliver(chunk), executor));
+            }
+
+            CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).join();
+        } while (batch.size() == batchSize);
+    }
+
+    private void deliver(List<MailOutbox> mails) {
+        Map<MailOutbox, Exception> failures = emailService.deliver(mails);
+
+        for (MailOutbox mail : mails) {
+            Exception error = failures.get(mail);
+
+            if (error == null)
+                mailOutboxService.markSent(mail);
+            else
+                mailOutboxService.markFailed(mail, error);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.enums.MailTypeEnum;
+import com.ethereum.sajauth.utils.MailTemplate;
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class MailTemplateService {
+
+    private static final String TEMPLATE_PATH = "templates/mail/";
+    private static final String[] VARIABLES = {"username", "url"};
+
+    private final Map<MailTypeEnum, MailTemplate> htmlTemplates = new EnumMap<>(MailTypeEnum.class);
+    private final Map<MailTypeEnum, MailTemplate> textTemplates = new EnumMap<>(MailTypeEnum.class);
+
+    // Chaque type d'email doit avoir ses deux templates : l'application ne démarre pas sinon
+    @PostConstruct
+    void loadTemplates() throws IOException {
+        for (MailTypeEnum type : MailTypeEnum.values()) {
+            String name = TEMPLATE_PATH + type.getMailType().toLowerCase(Locale.ROOT);
+            htmlTemplates.put(type, MailTemplate.compile(read(name + ".html"), true, VARIABLES));
+            textTemplates.put(type, MailTemplate.compile(read(name + ".txt"), false, VARIABLES));
+        }
+    }
+
+    private String read(String path) throws IOException {
+        return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    public String renderHtml(MailTypeEnum type, StringBuilder buffer, String username, String url) {
+        return render(htmlTemplates.get(type), buffer, username, url);
+    }
+
+    public String renderText(MailTypeEnum type, StringBuilder buffer, String username, String url) {
+        return render(textTemplates.get(type), buffer, username, url);
+    }
+
+    private String render(MailTemplate template, StringBuilder buffer, String username, String url) {
+        buffer.setLength(0);
+        template.render(buffer, username, url);
+        return buffer.toString();
+    }
+}
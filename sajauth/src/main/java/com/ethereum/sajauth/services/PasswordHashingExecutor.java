@@ -0,0 +1,134 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.exceptions.PasswordHashingBusyException;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool CPU dédié au hashage des mots de passe : une rafale de connexions ne peut pas occuper
+// tous les threads de requête. File bornée, rejet immédiat quand elle est pleine
+@Component
+public class PasswordHashingExecutor {
+
+    public enum Priority {
+        HIGH, // vérification à la connexion
+        LOW   // hashage à l'inscription ou à la réinitialisation
+    }
+
+    @Value("${app.password.hashing.threads:0}") // 0 : un thread par coeur
+    private int threads;
+
+    @Value("${app.password.hashing.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.password.hashing.timeout-ms:2000}")
+    private long timeoutMillis;
+
+    private ThreadPoolExecutor executor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AuthMetrics authMetrics;
+
+    public PasswordHashingExecutor(AuthMetrics authMetrics) {
+        this.authMetrics = authMetrics;
+    }
+
+    @PostConstruct
+    void startExecutor() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdown();
+    }
+
+    public <T> T execute(Priority priority, Callable<T> hashing) {
+        // Capacité = threads occupés + file d'attente. Une place n'est rendue qu'à la fin du hashage ou quand la tâche
+        // est retirée de la file : un hashage abandonné après le délai continue d'occuper son thread
+        if (pending.incrementAndGet() > executor.getCorePoolSize() + queueCapacity) {
+            pending.decrementAndGet();
+            authMetrics.passwordHashingRejected();
+            throw new PasswordHashingBusyException("Service de hashage saturé");
+        }
+
+        long submittedAt = System.nanoTime();
+        PrioritizedTask<T> task = new PrioritizedTask<>(priority, sequence.incrementAndGet(), () -> {
+            long startedAt = System.nanoTime();
+            try {
+                return hashing.call();
+            } finally {
+                pending.decrementAndGet();
+                authMetrics.passwordHashed(startedAt - submittedAt, System.nanoTime() - startedAt);
+            }
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw new PasswordHashingBusyException("Service de hashage arrêté");
+        }
+
+        try {
+            return task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(task);
+            authMetrics.passwordHashingRejected();
+            throw new PasswordHashingBusyException("Délai de hashage dépassé");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            abandon(task);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Hashage interrompu");
+        }
+    }
+
+    // Tâche encore en file : retirée et sa place rendue. Déjà commencée : le hashage n'est pas interruptible,
+    // sa place est rendue à la fin
+    private void abandon(PrioritizedTask<?> task) {
+        if (executor.remove(task)) {
+            task.cancel(false);
+            pending.decrementAndGet();
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    // Priorité d'abord, puis ordre d'arrivée
+    private static class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+        private final Priority priority;
+        private final long sequence;
+
+        PrioritizedTask(Priority priority, long sequence, Callable<T> callable) {
+            super(callable);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
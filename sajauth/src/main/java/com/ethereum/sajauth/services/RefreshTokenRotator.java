@@ -0,0 +1,91 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.DTO.TokenResponse;
+import com.ethereum.sajauth.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Refresh concurrents d'un même token (onglets, nouveaux essais du client) : une seule rotation par instance,
+// dont le résultat est renvoyé à tous les appels reçus pendant app.sessions.refresh-grace-ms.
+// Entre instances, la version de la ligne user_token et le délai de grâce de UserTokenService prennent le relais
+@Service
+public class RefreshTokenRotator {
+
+    @Value("${app.sessions.refresh-grace-ms:10000}")
+    private long refreshGraceMillis;
+
+    private final UserTokenService userTokenService;
+    private final JwtUtil jwtUtil;
+
+    // Empreinte du refresh token présenté (comme en base, jamais le token lui-même) -> rotation en cours
+    // ou terminée depuis moins que le délai de grâce
+    private final ConcurrentHashMap<String, Rotation> rotations = new ConcurrentHashMap<>();
+
+    private record Rotation(CompletableFuture<Optional<TokenResponse>> result, long startedAt) {
+    }
+
+    public RefreshTokenRotator(UserTokenService userTokenService, JwtUtil jwtUtil) {
+        this.userTokenService = userTokenService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    public Optional<TokenResponse> refresh(String refreshToken, Claims claims) {
+        long now = System.currentTimeMillis();
+        String key = Base64.getEncoder().encodeToString(jwtUtil.hashRefreshToken(refreshToken));
+        Rotation created = new Rotation(new CompletableFuture<>(), now);
+        Rotation rotation = rotations.compute(key,
+                (digest, existing) -> existing != null && now - existing.startedAt() < refreshGraceMillis ? existing : created);
+
+        if (rotation == created)
+            rotate(key, refreshToken, claims, created);
+
+        try {
+            return rotation.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw e;
+        }
+    }
+
+    private void rotate(String key, String refreshToken, Claims claims, Rotation rotation) {
+        try {
+            Optional<TokenResponse> tokens = rotateWithRetry(refreshToken, claims);
+            // Refus non conservé : un nouvel essai est réévalué en base
+            if (tokens.isEmpty())
+                rotations.remove(key, rotation);
+            rotation.result().complete(tokens);
+        } catch (RuntimeException e) {
+            rotations.remove(key, rotation);
+            rotation.result().completeExceptionally(e);
+        }
+    }
+
+    private Optional<TokenResponse> rotateWithRetry(String refreshToken, Claims claims) {
+        try {
+            return userTokenService.refreshUserTokens(refreshToken, claims);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Rotation simultanée sur une autre instance : le token est maintenant le précédent de sa session
+            return userTokenService.refreshUserTokens(refreshToken, claims);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sessions.refresh-grace-ms:10000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        rotations.values().removeIf(rotation -> rotation.result().isDone() && now - rotation.startedAt() >= refreshGraceMillis);
+    }
+
+    int size() {
+        return rotations.size();
+    }
+}
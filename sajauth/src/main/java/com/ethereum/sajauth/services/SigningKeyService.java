@@ -0,0 +1,180 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.entities.SigningKey;
+import com.ethereum.sajauth.repositories.SigningKeyRepository;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+// Rotation des clés ES256 partagée par toutes les instances via la table signing_key.
+// Le temps est découpé en périodes fixes (jwt.signing.rotation-days) : la clé d'une période est créée par la première
+// instance qui en a besoin, publiée dans le JWKS jwt.signing.publish-ahead-hours avant son activation, puis gardée
+// en vérification après sa période le temps de vie d'un refresh token.
+@Service
+public class SigningKeyService {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyService.class);
+
+    private static final String KEY_ENCRYPTION_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    @Value("${jwt.signing.rotation-days:30}")
+    private long rotationDays;
+
+    // A garder au-dessus du max-age du JWKS : un consommateur connaît la clé suivante avant qu'elle signe
+    @Value("${jwt.signing.publish-ahead-hours:24}")
+    private long publishAheadHours;
+
+    @Value("${jwt.jwks.max-age-seconds:3600}")
+    private long jwksMaxAgeSeconds;
+
+    // Clé (base64) de chiffrement des clés privées en base. Changer cette clé rend les clés stockées illisibles
+    @Value("${jwt.signing.key-encryption-key:${jwt.secret.key}}")
+    private String keyEncryptionKey;
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final JwtUtil jwtUtil;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private SecretKey encryptionKey;
+
+    public SigningKeyService(SigningKeyRepository signingKeyRepository, JwtUtil jwtUtil) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        if (Duration.ofHours(publishAheadHours).toSeconds() <= jwksMaxAgeSeconds)
+            throw new IllegalStateException("jwt.signing.publish-ahead-hours doit dépasser jwt.jwks.max-age-seconds");
+        if (Duration.ofHours(publishAheadHours).compareTo(rotationPeriod()) >= 0)
+            throw new IllegalStateException("jwt.signing.publish-ahead-hours doit être inférieur à jwt.signing.rotation-days");
+
+        // Clé dérivée : la clé fournie sert aussi ailleurs (HMAC), jamais directement pour AES
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(keyEncryptionKey), "HmacSHA256"));
+        encryptionKey = new SecretKeySpec(mac.doFinal("sajauth-signing-key".getBytes(StandardCharsets.UTF_8)), "AES");
+
+        refresh();
+    }
+
+    // Toutes les instances chargent la clé suivante bien avant son activation : la bascule à l'heure prévue
+    // ne dépend pas de cet intervalle
+    @Scheduled(initialDelayString = "${jwt.signing.poll-ms:60000}", fixedDelayString = "${jwt.signing.poll-ms:60000}")
+    public void refresh() {
+        Instant now = Instant.now();
+        Instant currentPeriod = periodStart(now);
+        Instant nextPeriod = currentPeriod.plus(rotationPeriod());
+
+        ensureKey(currentPeriod);
+        if (!now.plus(Duration.ofHours(publishAheadHours)).isBefore(nextPeriod))
+            ensureKey(nextPeriod);
+
+        Instant verifiableAfter = now.minusMillis(jwtUtil.maxTokenLifetimeMillis());
+        signingKeyRepository.deleteRetiredBefore(verifiableAfter);
+        List<SigningKey> keys = signingKeyRepository.findByRetiresAtAfter(verifiableAfter);
+
+        Set<String> kids = new HashSet<>();
+        keys.forEach(key -> kids.add(key.getKid()));
+        if (!kids.equals(jwtUtil.publishedKeyIds())) {
+            jwtUtil.useSigningKeys(keys.stream().map(this::decrypt).toList());
+            log.info("Clés de signature chargées : {}", kids);
+        }
+    }
+
+    private Duration rotationPeriod() {
+        return Duration.ofDays(rotationDays);
+    }
+
+    // Début de période identique sur toutes les instances
+    private Instant periodStart(Instant at) {
+        long period = rotationPeriod().toMillis();
+        return Instant.ofEpochMilli(Math.floorDiv(at.toEpochMilli(), period) * period);
+    }
+
+    private void ensureKey(Instant activatesAt) {
+        if (signingKeyRepository.existsByActivatesAt(activatesAt))
+            return;
+
+        try {
+            SigningKey key = generate(activatesAt);
+            signingKeyRepository.saveAndFlush(key);
+            log.info("Nouvelle clé de signature {} active à partir de {}", key.getKid(), activatesAt);
+        } catch (DataIntegrityViolationException e) {
+            // Créée au même moment par une autre instance, chargée avec les autres clés
+        }
+    }
+
+    private SigningKey generate(Instant activatesAt) {
+        KeyPair keyPair = JwtUtil.SIGNING_ALGORITHM.keyPair().build();
+
+        SigningKey key = new SigningKey();
+        key.setKid(Jwks.builder().key((ECPublicKey) keyPair.getPublic()).idFromThumbprint().build().getId());
+        key.setAlgorithm(JwtUtil.SIGNING_ALGORITHM.getId());
+        key.setPublicKey(keyPair.getPublic().getEncoded());
+        key.setPrivateKey(encrypt(key.getKid(), keyPair.getPrivate().getEncoded()));
+        key.setActivatesAt(activatesAt);
+        key.setRetiresAt(activatesAt.plus(rotationPeriod()));
+        return key;
+    }
+
+    // Le kid est authentifié avec la clé chiffrée : une clé privée recopiée sur une autre ligne est rejetée
+    private byte[] encrypt(String kid, byte[] privateKey) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(KEY_ENCRYPTION_ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(privateKey);
+
+            return ByteBuffer.allocate(IV_LENGTH + encrypted.length).put(iv).put(encrypted).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Chiffrement de la clé de signature impossible", e);
+        }
+    }
+
+    private JwtUtil.AsymmetricKey decrypt(SigningKey key) {
+        try {
+            Cipher cipher = Cipher.getInstance(KEY_ENCRYPTION_ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH_BITS, key.getPrivateKey(), 0, IV_LENGTH));
+            cipher.updateAAD(key.getKid().getBytes(StandardCharsets.UTF_8));
+            byte[] privateKey = cipher.doFinal(key.getPrivateKey(), IV_LENGTH, key.getPrivateKey().length - IV_LENGTH);
+
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            return new JwtUtil.AsymmetricKey(
+                    key.getKid(),
+                    key.getActivatesAt(),
+                    keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)),
+                    keyFactory.generatePublic(new X509EncodedKeySpec(key.getPublicKey())));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Clé de signature " + key.getKid() + " illisible (jwt.signing.key-encryption-key modifiée ?)", e);
+        }
+    }
+}
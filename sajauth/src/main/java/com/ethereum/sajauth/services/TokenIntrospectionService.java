@@ -0,0 +1,152 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.DTO.TokenIntrospectionResponse;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.enums.TokenStatusEnum;
+import com.ethereum.sajauth.exceptions.IntrospectionBatchSizeException;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Validation d'un lot de tokens (POST /api/v1/introspect) : signatures vérifiées en parallèle,
+// puis état de tous les comptes lu en une requête
+@Service
+public class TokenIntrospectionService {
+
+    // En dessous, découper le lot coûte plus que la vérification elle-même
+    private static final int MIN_SLICE_SIZE = 16;
+
+    @Value("${app.introspection.threads:0}") // 0 : un thread par coeur
+    private int threads;
+
+    @Value("${app.introspection.max-batch:1000}")
+    private int maxBatchSize;
+
+    private final JwtUtil jwtUtil;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+
+    private ThreadPoolExecutor executor;
+
+    private record Verification(Claims claims, TokenStatusEnum failure) {
+    }
+
+    public TokenIntrospectionService(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+                                     TokenRevocationService tokenRevocationService) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    // Pool et file bornés : une fois la file pleine, le thread de requête vérifie lui-même sa tranche
+    @PostConstruct
+    void startExecutor() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(poolSize * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "token-introspection-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdown();
+    }
+
+    // Résultats dans l'ordre des tokens reçus
+    public List<TokenIntrospectionResponse> introspect(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty() || tokens.size() > maxBatchSize)
+            throw new IntrospectionBatchSizeException("Entre 1 et " + maxBatchSize + " tokens par requête");
+
+        Verification[] verifications = verifyAll(tokens);
+
+        Set<String> emails = new HashSet<>();
+        for (Verification verification : verifications)
+            if (verification.claims() != null)
+                emails.add(verification.claims().getSubject());
+
+        Map<String, UserAuthState> userStates = emails.isEmpty() ? Map.of() : userDetailsService.loadUserAuthStates(emails);
+
+        List<TokenIntrospectionResponse> responses = new ArrayList<>(tokens.size());
+        for (Verification verification : verifications)
+            responses.add(response(verification, userStates));
+        return responses;
+    }
+
+    private TokenIntrospectionResponse response(Verification verification, Map<String, UserAuthState> userStates) {
+        if (verification.failure() != null)
+            return new TokenIntrospectionResponse(verification.failure());
+
+        UserAuthState userState = userStates.get(verification.claims().getSubject());
+        if (userState == null)
+            return new TokenIntrospectionResponse(TokenStatusEnum.REVOKED);
+        if (!userState.isEnabled())
+            return new TokenIntrospectionResponse(TokenStatusEnum.DISABLED);
+
+        return new TokenIntrospectionResponse(userState, verification.claims().getExpiration().getTime() / 1000);
+    }
+
+    // Une tranche par thread au plus ; la dernière est vérifiée par le thread appelant
+    private Verification[] verifyAll(List<String> tokens) {
+        Verification[] verifications = new Verification[tokens.size()];
+        int slices = Math.max(1, Math.min(executor.getCorePoolSize(), tokens.size() / MIN_SLICE_SIZE));
+        int sliceSize = (tokens.size() + slices - 1) / slices;
+
+        List<Future<?>> futures = new ArrayList<>(slices - 1);
+        for (int start = 0; start < tokens.size() - sliceSize; start += sliceSize) {
+            int from = start;
+            futures.add(executor.submit(() -> verifySlice(tokens, verifications, from, from + sliceSize)));
+        }
+        verifySlice(tokens, verifications, futures.size() * sliceSize, tokens.size());
+
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Introspection interrompue", e);
+        }
+        return verifications;
+    }
+
+    private void verifySlice(List<String> tokens, Verification[] verifications, int from, int to) {
+        for (int i = from; i < to; i++)
+            verifications[i] = verify(tokens.get(i));
+    }
+
+    private Verification verify(String token) {
+        try {
+            Claims claims = jwtUtil.extractClaims(token);
+            // Même règle que JwtFilter : un refresh token n'authentifie pas
+            if (claims.getSubject() == null || !jwtUtil.isAccessToken(claims))
+                return new Verification(null, TokenStatusEnum.INVALID);
+            if (tokenRevocationService.isRevoked(claims))
+                return new Verification(null, TokenStatusEnum.REVOKED);
+            return new Verification(claims, null);
+        } catch (ExpiredJwtException e) {
+            return new Verification(null, TokenStatusEnum.EXPIRED);
+        } catch (JwtException | IllegalArgumentException e) {
+            return new Verification(null, TokenStatusEnum.INVALID);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.DTO.UserAuthState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+@Service
+public class UserAuthCache {
+
+    // Borne de fraîcheur : une modification du compte qui n'est pas invalidée explicitement
+    // (ex. modification directe en base) est prise en compte au plus tard après ce délai
+    @Value("${app.auth.cache.ttl.seconds:30}")
+    private long ttlSeconds;
+
+    // Emails inconnus gardés moins longtemps pour qu'une inscription soit vite visible
+    @Value("${app.auth.cache.negative-ttl.seconds:5}")
+    private long negativeTtlSeconds;
+
+    @Value("${app.auth.cache.max-size:10000}")
+    private int maxSize;
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // state == null : email inconnu en base (cache négatif)
+    private record Entry(UserAuthState state, long expiresAt) {
+    }
+
+    public Optional<UserAuthState> get(String email, Function<String, Optional<UserAuthState>> loader) {
+        Entry entry = entries.get(email);
+
+        if (entry != null && entry.expiresAt() >= System.currentTimeMillis()) {
+            hits.increment();
+            return Optional.ofNullable(entry.state());
+        }
+
+        misses.increment();
+        Optional<UserAuthState> state = loader.apply(email);
+        put(email, state.orElse(null));
+
+        if (entries.size() > maxSize)
+            evict();
+
+        return state;
+    }
+
+    // Version groupée de get : les emails absents du cache sont chargés en un seul appel au loader.
+    // Les emails inconnus en base sont absents du résultat
+    public Map<String, UserAuthState> getAll(Collection<String> emails, Function<Collection<String>, Map<String, UserAuthState>> loader) {
+        Map<String, UserAuthState> states = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (String email : emails) {
+            Entry entry = entries.get(email);
+
+            if (entry == null || entry.expiresAt() < now) {
+                missing.add(email);
+            } else if (entry.state() != null) {
+                states.put(email, entry.state());
+            }
+        }
+        hits.add(emails.size() - missing.size());
+
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            Map<String, UserAuthState> loaded = loader.apply(missing);
+
+            for (String email : missing) {
+                UserAuthState state = loaded.get(email);
+                put(email, state);
+                if (state != null)
+                    states.put(email, state);
+            }
+
+            if (entries.size() > maxSize)
+                evict();
+        }
+        return states;
+    }
+
+    // Lecture sans chargement, pour un appelant non bloquant qui charge lui-même puis appelle put.
+    // null si l'email est absent ou expiré ; Optional vide si l'email est connu comme inexistant
+    public Optional<UserAuthState> getIfPresent(String email) {
+        Entry entry = entries.get(email);
+
+        if (entry != null && entry.expiresAt() >= System.currentTimeMillis()) {
+            hits.increment();
+            return Optional.ofNullable(entry.state());
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String email, Optional<UserAuthState> state) {
+        put(email, state.orElse(null));
+
+        if (entries.size() > maxSize)
+            evict();
+    }
+
+    private void put(String email, UserAuthState state) {
+        long ttl = state != null ? ttlSeconds : negativeTtlSeconds;
+        entries.put(email, new Entry(state, System.currentTimeMillis() + ttl * 1000));
+    }
+
+    public void invalidate(String email) {
+        entries.remove(email);
+
+        // Une requête concurrente peut relire l'ancien état avant le commit : on invalide à nouveau après
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(email);
+                }
+            });
+        }
+    }
+
+    // Retire l'entrée qui expire le plus tôt parmi un échantillon, sans verrou global
+    private void evict() {
+        while (entries.size() > maxSize) {
+            Map.Entry<String, Entry> candidate = null;
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+            for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+                Map.Entry<String, Entry> current = iterator.next();
+                if (candidate == null || current.getValue().expiresAt() < candidate.getValue().expiresAt())
+                    candidate = current;
+            }
+
+            if (candidate == null)
+                return;
+
+            if (entries.remove(candidate.getKey(), candidate.getValue()))
+                evictions.increment();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
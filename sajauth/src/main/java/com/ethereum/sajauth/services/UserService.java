@@ -1,12 +1,14 @@
 package com.ethereum.sajauth.services;
 
 import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.datasource.ReplicaRouting;
 import com.ethereum.sajauth.entities.Role;
 import com.ethereum.sajauth.entities.User;
 import com.ethereum.sajauth.repositories.RoleRepository;
 import com.ethereum.sajauth.repositories.UserRepository;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -16,23 +18,30 @@ public class UserService {
     private final RoleRepository roleRepository;
     private final PasswordService passwordService;
     private final JwtUtil jwtUtil;
+    private final UserAuthCache userAuthCache;
+    private final ReplicaRouting replicaRouting;
 
-    public UserService(UserRepository userRepository, JwtUtil jwtUtil, RoleRepository roleRepository, PasswordService passwordService) {
+    public UserService(UserRepository userRepository, JwtUtil jwtUtil, RoleRepository roleRepository, PasswordService passwordService,
+                       UserAuthCache userAuthCache, ReplicaRouting replicaRouting) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.roleRepository = roleRepository;
         this.passwordService = passwordService;
+        this.userAuthCache = userAuthCache;
+        this.replicaRouting = replicaRouting;
     }
 
+    @Transactional(readOnly = true)
     public User getUserFromToken(String token) {
         String email = jwtUtil.extractClaims(token).getSubject();
 
-        return userRepository.findByEmail(email)
+        return replicaRouting.readAccount(email, () -> userRepository.findByEmail(email))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return replicaRouting.readAccount(email, () -> userRepository.findByEmail(email));
     }
 
     public User fillUser(String email, String password) {
@@ -42,7 +51,7 @@ public class UserService {
         user.setEnabled(false);
 
         // Attribution du rôle USER par défaut
-        Role userRole = roleRepository.findByName("USER")
+        Role userRole = roleRepository.findByName("ROLE_USER")
                 .orElseGet(() -> {
                     Role newRole = new Role();
                     newRole.setName("ROLE_USER");
@@ -53,20 +62,14 @@ public class UserService {
         return user;
     }
 
-    public boolean limitLoginAttempts(User user) {
-        int attempts = user.getLoginAttempts();
-
-        if (attempts < 5) {
-            user.setLoginAttempts(++attempts);
-        } else {
-            user.setLoginAttempts(0);
-            userRepository.save(user);
-            return true;
-        }
-
-        userRepository.save(user);
-
-        return false;
+    // Appelé dans la transaction de l'inscription : l'email a pu être mis en cache comme inconnu avant, ou par une
+    // requête concurrente avant le commit. UserAuthCache l'invalide de nouveau une fois la transaction validée
+    @Transactional
+    public User saveNewUser(User user) {
+        User saved = userRepository.save(user);
+        userAuthCache.invalidate(user.getEmail());
+        replicaRouting.markWritten(user.getEmail());
+        return saved;
     }
 
 }
@@ -5,68 +5,181 @@ import com.ethereum.sajauth.JwtUtil;
 import com.ethereum.sajauth.entities.User;
 import com.ethereum.sajauth.entities.UserToken;
 import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.UserRepository;
 import com.ethereum.sajauth.repositories.UserTokenRepository;
 import com.ethereum.sajauth.utils.CookieUtils;
-import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Optional;
+import java.util.UUID;
 
+// Sessions de refresh token, une par appareil : une connexion ajoute une session, un refresh ne modifie que la sienne
 @Service
 public class UserTokenService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserTokenService.class);
+
+    private static final int DEVICE_MAX_LENGTH = 255;
+
+    @Value("${app.sessions.max-per-user:5}")
+    private int maxSessionsPerUser;
+
+    @Value("${app.sessions.refresh-grace-ms:10000}")
+    private long refreshGraceMillis;
+
     private final UserTokenRepository userTokenRepository;
+    private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final UserAuthCache userAuthCache;
+    private final AuthMetrics authMetrics;
 
-    public UserTokenService(UserTokenRepository userTokenRepository, JwtUtil jwtUtil) {
+    public UserTokenService(UserTokenRepository userTokenRepository, UserRepository userRepository, JwtUtil jwtUtil, UserAuthCache userAuthCache,
+                            AuthMetrics authMetrics) {
         this.userTokenRepository = userTokenRepository;
+        this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
+        this.userAuthCache = userAuthCache;
+        this.authMetrics = authMetrics;
     }
 
-    public void createAndSaveRefreshToken(String refreshToken, User user) {
-        removeOldUserTokens(user);
-        UserToken userToken = new UserToken();
-        userToken.setUser(user);
-        userToken.setCreationDate(jwtUtil.extractClaims(refreshToken).getIssuedAt());
-        userToken.setExpirationDate(jwtUtil.extractClaims(refreshToken).getExpiration());
+    private TokenResponse generateTokens(Long userId, String email, String sessionId, Date issuedAt) {
+        TokenResponse tokenResponse = new TokenResponse();
+        tokenResponse.setAccessToken(jwtUtil.generateToken(userId, email, JwtTokenEnum.ACCESS.getId(), issuedAt, sessionId));
+        tokenResponse.setRefreshToken(jwtUtil.generateToken(userId, email, JwtTokenEnum.REFRESH.getId(), issuedAt, sessionId));
+        tokenResponse.setUserId(userId);
+        return tokenResponse;
+    }
 
-        String hashedRefreshToken = jwtUtil.hashRefreshToken(refreshToken);
-        userToken.setRefreshToken(hashedRefreshToken);
+    // Connexion : nouvelle session, celles des autres appareils sont conservées dans la limite de app.sessions.max-per-user.
+    // L'utilisateur n'est pas relu, une référence suffit pour la clé étrangère
+    @Transactional
+    public TokenResponse createUserTokens(Long userId, String email, String device, HttpServletResponse response) {
+        Date issuedAt = new Date();
+        String sessionId = UUID.randomUUID().toString();
+        TokenResponse tokenResponse = generateTokens(userId, email, sessionId, issuedAt);
 
+        UserToken userToken = new UserToken();
+        userToken.setUser(userRepository.getReferenceById(userId));
+        userToken.setSessionId(sessionId);
+        userToken.setDevice(device != null && device.length() > DEVICE_MAX_LENGTH ? device.substring(0, DEVICE_MAX_LENGTH) : device);
+        userToken.setCreationDate(issuedAt);
+        userToken.setLastUsedAt(issuedAt);
+        userToken.setExpirationDate(jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), issuedAt));
+        userToken.setTokenHash(jwtUtil.hashRefreshToken(tokenResponse.getRefreshToken()));
         userTokenRepository.save(userToken);
+
+        userTokenRepository.evictLeastRecentlyUsed(userId, maxSessionsPerUser);
+        CookieUtils.addRefreshTokenCookie(response, tokenResponse.getRefreshToken());
+
+        return tokenResponse;
     }
 
-    public TokenResponse createUserTokens(User user, HttpServletResponse response) {
-        String accessToken = jwtUtil.generateToken(user.getEmail(), JwtTokenEnum.ACCESS.getId());
-        String refreshToken = jwtUtil.generateToken(user.getEmail(), JwtTokenEnum.REFRESH.getId());
+    // Rotation du refresh token de sa session seulement. Vide si le token n'est ni le token courant d'une session,
+    // ni le précédent dans le délai de grâce, ou si le compte a été désactivé. Sur le primaire : un réplica en retard montrerait encore un refresh token
+    // déjà consommé par une rotation. Une rotation concurrente sur la même ligne lève ObjectOptimisticLockingFailureException
+    @Transactional
+    public Optional<TokenResponse> refreshUserTokens(String refreshToken, Claims claims) {
+        Long userId = claims.get("userId", Long.class);
+        byte[] tokenHash = jwtUtil.hashRefreshToken(refreshToken);
+        Optional<UserToken> session = userTokenRepository.findByCurrentOrPreviousTokenHash(tokenHash)
+                .or(() -> migrateLegacyToken(userId, refreshToken, tokenHash));
 
-        CookieUtils.addRefreshTokenCookie(response, refreshToken);
-        createAndSaveRefreshToken(refreshToken, user);
+        if (session.isEmpty() || !session.get().getUser().getId().equals(userId)) {
+            revokeReusedSession(claims, userId);
+            return Optional.empty();
+        }
+
+        UserToken userToken = session.get();
+        // Compte désactivé depuis la connexion : plus de nouveaux tokens, la session est fermée.
+        // Un compte supprimé n'a plus de session (clé étrangère) : la lecture est alors vide
+        if (!userToken.getUser().isEnabled()) {
+            userTokenRepository.delete(userToken);
+            return Optional.empty();
+        }
+
+        Date now = new Date();
+        if (userToken.getExpirationDate().before(now)) {
+            userTokenRepository.delete(userToken);
+            return Optional.empty();
+        }
+
+        if (!Arrays.equals(userToken.getTokenHash(), tokenHash))
+            return refreshFromPreviousToken(userToken, claims, now);
+
+        TokenResponse tokenResponse = generateTokens(userId, claims.getSubject(), userToken.getSessionId(), now);
+        userToken.setPreviousTokenHash(tokenHash);
+        userToken.setTokenHash(jwtUtil.hashRefreshToken(tokenResponse.getRefreshToken()));
+        userToken.setRotatedAt(now);
+        userToken.setLastUsedAt(now);
+        userToken.setExpirationDate(jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), now));
+        userTokenRepository.saveAndFlush(userToken); // contrôle de version dans la transaction
+
+        return Optional.of(tokenResponse);
+    }
+
+    // Refresh parallèle arrivé après la rotation (autre onglet, nouvel essai, autre instance) : nouveau token d'accès
+    // sans nouveau refresh token. Le client garde le cookie posé par la rotation, la ligne n'est pas modifiée
+    private Optional<TokenResponse> refreshFromPreviousToken(UserToken userToken, Claims claims, Date now) {
+        if (userToken.getRotatedAt() == null || now.getTime() - userToken.getRotatedAt().getTime() >= refreshGraceMillis) {
+            revokeReusedSession(claims, userToken.getUser().getId());
+            return Optional.empty();
+        }
 
         TokenResponse tokenResponse = new TokenResponse();
-        tokenResponse.setAccessToken(accessToken);
-        tokenResponse.setRefreshToken(refreshToken);
+        tokenResponse.setAccessToken(jwtUtil.generateToken(userToken.getUser().getId(), claims.getSubject(), JwtTokenEnum.ACCESS.getId(),
+                now, userToken.getSessionId()));
+        tokenResponse.setUserId(userToken.getUser().getId());
+        return Optional.of(tokenResponse);
+    }
 
-        return tokenResponse;
+    // Refresh token signé et non expiré, mais plus celui de sa session : il a déjà servi à une rotation, hors délai de grâce.
+    // Le token a pu être volé, la session est révoquée pour son détenteur comme pour l'appareil légitime
+    private void revokeReusedSession(Claims claims, Long userId) {
+        String sessionId = claims.get(JwtUtil.SESSION_ID_CLAIM, String.class);
+        if (sessionId == null || userId == null)
+            return;
+
+        if (userTokenRepository.deleteBySessionId(sessionId, userId) > 0) {
+            authMetrics.refreshTokenReused();
+            log.warn("Refresh token réutilisé : session {} de l'utilisateur {} révoquée", sessionId, userId);
+        }
+    }
+
+    // Déconnexion de l'appareil du token d'accès. Token émis avant les sessions : toutes sont révoquées
+    public void removeUserSession(User user, String sessionId) {
+        if (sessionId == null) {
+            removeOldUserTokens(user);
+            return;
+        }
+        userTokenRepository.deleteBySessionId(sessionId, user.getId());
+        userAuthCache.invalidate(user.getEmail());
     }
 
     public void removeOldUserTokens(User user) {
-        userTokenRepository.deleteByUser(user);
+        userTokenRepository.deleteAllByUserId(user.getId());
+        // Déconnexion ou changement de mot de passe : l'état du compte est relu à la prochaine requête
+        userAuthCache.invalidate(user.getEmail());
     }
 
-    public boolean validateRefreshToken(String refreshToken, User user) {
-        String hashedRefreshToken = jwtUtil.hashRefreshToken(refreshToken);
-        Optional<UserToken> userToken = userTokenRepository.findByRefreshTokenAndUser(hashedRefreshToken, user);
+    // Session créée avant le passage à l'empreinte HMAC : convertie au premier refresh
+    private Optional<UserToken> migrateLegacyToken(Long userId, String refreshToken, byte[] tokenHash) {
+        if (userId == null)
+            return Optional.empty();
 
-        if (userToken.isPresent()) {
-            if (userToken.get().getExpirationDate().before(new Date())) {
-                userTokenRepository.delete(userToken.get());
-                return false;
-            }
-            return true;
-        }
-        return false;
+        return userTokenRepository.findByUserIdAndRefreshToken(userId, jwtUtil.legacyHashRefreshToken(refreshToken))
+                .map(userToken -> {
+                    userToken.setTokenHash(tokenHash);
+                    userToken.setRefreshToken(null);
+                    return userTokenRepository.save(userToken);
+                });
     }
 }
@@ -1,15 +1,22 @@
 package com.ethereum.sajauth.services;
 
+import com.ethereum.sajauth.datasource.ReplicaRouting;
 import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.entities.VerificationToken;
 import com.ethereum.sajauth.enums.MailTypeEnum;
 import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.repositories.VerificationTokenRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -21,67 +28,97 @@ public class VerificationTokenService {
     @Value("${app.reset.pwd.expiration.minutes:10}")
     private int resetPwdExpirationToken;
 
+    private static final int TOKEN_BYTES = 32;
+    private final SecureRandom secureRandom = new SecureRandom();
+
     private final UserRepository userRepository;
+    private final VerificationTokenRepository verificationTokenRepository;
     private final PasswordService passwordService;
     private final UserTokenService userTokenService;
+    private final UserAuthCache userAuthCache;
+    private final ReplicaRouting replicaRouting;
 
-    public VerificationTokenService(UserRepository userRepository, PasswordService passwordService, UserTokenService userTokenService) {
+    public VerificationTokenService(UserRepository userRepository, VerificationTokenRepository verificationTokenRepository,
+                                    PasswordService passwordService, UserTokenService userTokenService, UserAuthCache userAuthCache,
+                                    ReplicaRouting replicaRouting) {
         this.userRepository = userRepository;
+        this.verificationTokenRepository = verificationTokenRepository;
         this.passwordService = passwordService;
         this.userTokenService = userTokenService;
+        this.userAuthCache = userAuthCache;
+        this.replicaRouting = replicaRouting;
     }
 
     public String generateVerificationToken() {
-        return UUID.randomUUID().toString();
+        byte[] token = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
     }
 
-    public void createVerificationToken(User user, String verificationType) {
+    // Retourne le token brut, à transmettre par email ; seule son empreinte est conservée en base
+    public String createVerificationToken(User user, String verificationType) {
+        MailTypeEnum type = MailTypeEnum.fromMailType(verificationType);
         String token = generateVerificationToken();
-        user.setVerificationToken(token);
 
-        if (MailTypeEnum.MAIL_CONFIRMATION.getMailType().equals(verificationType))
-            user.setVerificationTokenExpiry(LocalDateTime.now().now().plusHours(mailConfirmationExpirationToken));
-        else if (MailTypeEnum.RESET_PWD.getMailType().equals(verificationType))
-            user.setVerificationTokenExpiry(LocalDateTime.now().now().plusMinutes(resetPwdExpirationToken));
+        VerificationToken verificationToken = new VerificationToken();
+        verificationToken.setUser(user);
+        verificationToken.setType(type);
+        verificationToken.setTokenHash(digest(token));
+        verificationToken.setExpiresAt(type == MailTypeEnum.RESET_PWD
+                ? LocalDateTime.now().plusMinutes(resetPwdExpirationToken)
+                : LocalDateTime.now().plusHours(mailConfirmationExpirationToken));
+        verificationTokenRepository.save(verificationToken);
+
+        return token;
     }
 
     public Optional<User> validateEmailByToken(String token) {
-        User user = userRepository.findByVerificationToken(token)
-            .orElse(null);
+        Optional<User> user = consume(token, MailTypeEnum.MAIL_CONFIRMATION);
 
-        if (user == null)
-            return Optional.empty();
+        user.ifPresent(u -> {
+            u.setEnabled(true);
+            userRepository.save(u);
+            userAuthCache.invalidate(u.getEmail());
+            replicaRouting.markWritten(u.getEmail());
+        });
 
-        if (LocalDateTime.now().isAfter(user.getVerificationTokenExpiry()))
-            return Optional.empty();
-
-        user.setEnabled(true);
-        user.setVerificationToken(null);
-        user.setVerificationTokenExpiry(null);
-        userRepository.save(user);
-
-        return Optional.of(user);
+        return user;
     }
 
     public Optional<User> resetPasswordByToken(String token, String password) {
-        User user = userRepository.findByVerificationToken(token)
-                .orElse(null);
+        Optional<User> user = consume(token, MailTypeEnum.RESET_PWD);
 
-        if (user == null)
-            return Optional.empty();
+        user.ifPresent(u -> {
+            u.setPassword(passwordService.encryptPassword(password));
 
-        if (LocalDateTime.now().isAfter(user.getVerificationTokenExpiry()))
-            return Optional.empty();
+            // Suppression des refresh tokens de l'utilisateur
+            userTokenService.removeOldUserTokens(u);
+
+            userRepository.save(u);
+            userAuthCache.invalidate(u.getEmail());
+            replicaRouting.markWritten(u.getEmail());
+        });
+
+        return user;
+    }
 
-        user.setVerificationToken(null);
-        user.setVerificationTokenExpiry(null);
-        user.setPassword(passwordService.encryptPassword(password));
+    private Optional<User> consume(String token, MailTypeEnum type) {
+        if (token == null)
+            return Optional.empty();
 
-        // Suppression des refresh tokens de l'utilisateur
-        userTokenService.removeOldUserTokens(user);
+        Optional<User> user = verificationTokenRepository.consume(digest(token), type.name(), LocalDateTime.now())
+                .flatMap(userRepository::findById);
 
-        userRepository.save(user);
+        user.ifPresent(u -> verificationTokenRepository.deleteAllByUserIdAndType(u.getId(), type));
+        return user;
+    }
 
-        return Optional.of(user);
+    // Token aléatoire de 256 bits : un SHA-256 sans sel suffit, la recherche se fait sur l'empreinte
+    private byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
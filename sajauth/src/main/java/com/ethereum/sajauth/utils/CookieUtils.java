@@ -3,6 +3,9 @@ package com.ethereum.sajauth.utils;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseCookie;
+
+import java.time.Duration;
 
 public class CookieUtils {
     public static final String REFRESH_TOKEN_COOKIE_NAME = "refreshToken";
@@ -17,6 +20,16 @@ public class CookieUtils {
         response.addCookie(cookie);
     }
 
+    // Même cookie en en-tête Set-Cookie, pour la variante réactive (sans HttpServletResponse)
+    public static ResponseCookie refreshTokenResponseCookie(String refreshToken) {
+        return ResponseCookie.from(REFRESH_TOKEN_COOKIE_NAME, refreshToken)
+                .path("/")
+                .httpOnly(true)
+                .secure(false)
+                .maxAge(Duration.ofSeconds(MAX_AGE))
+                .build();
+    }
+
     public static String getCookieValue(HttpServletRequest request, String cookieName) {
         Cookie[] cookies = request.getCookies();
 
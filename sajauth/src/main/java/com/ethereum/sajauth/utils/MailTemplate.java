@@ -0,0 +1,96 @@
+package com.ethereum.sajauth.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Template découpé une seule fois en segments de texte et emplacements de variables ({{nom}})
+public class MailTemplate {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final int[] variableIndexes;
+    private final boolean escapeHtml;
+    private final int estimatedSize;
+
+    private MailTemplate(String[] literals, int[] variableIndexes, boolean escapeHtml, int estimatedSize) {
+        this.literals = literals;
+        this.variableIndexes = variableIndexes;
+        this.escapeHtml = escapeHtml;
+        this.estimatedSize = estimatedSize;
+    }
+
+    // variableNames fixe l'ordre des valeurs attendues par render
+    public static MailTemplate compile(String source, boolean escapeHtml, String... variableNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int position = 0;
+
+        while (true) {
+            int start = source.indexOf(OPEN, position);
+            if (start < 0)
+                break;
+
+            int end = source.indexOf(CLOSE, start);
+            if (end < 0)
+                throw new IllegalArgumentException("Variable non fermée à la position " + start);
+
+            String name = source.substring(start + OPEN.length(), end).trim();
+            int index = List.of(variableNames).indexOf(name);
+            if (index < 0)
+                throw new IllegalArgumentException("Variable inconnue dans le template : " + name);
+
+            literals.add(source.substring(position, start));
+            indexes.add(index);
+            position = end + CLOSE.length();
+        }
+        literals.add(source.substring(position));
+
+        return new MailTemplate(
+                literals.toArray(String[]::new),
+                indexes.stream().mapToInt(Integer::intValue).toArray(),
+                escapeHtml,
+                source.length() + 256);
+    }
+
+    public int getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    // Ecrit dans un buffer fourni par l'appelant, qui peut le réutiliser d'un email à l'autre
+    public void render(StringBuilder out, String... values) {
+        for (int i = 0; i < variableIndexes.length; i++) {
+            out.append(literals[i]);
+            String value = values[variableIndexes[i]];
+
+            if (escapeHtml)
+                appendEscaped(out, value);
+            else if (value != null)
+                out.append(value);
+        }
+        out.append(literals[literals.length - 1]);
+    }
+
+    public String render(String... values) {
+        StringBuilder out = new StringBuilder(estimatedSize);
+        render(out, values);
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        if (value == null)
+            return;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
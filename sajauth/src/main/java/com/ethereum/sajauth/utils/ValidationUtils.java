@@ -0,0 +1,16 @@
+package com.ethereum.sajauth.utils;
+
+import java.util.regex.Pattern;
+
+public class ValidationUtils {
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[\\W_]).{8,}$");
+
+    public static boolean isValidEmail(String email) {
+        return email != null && EMAIL_PATTERN.matcher(email).matches();
+    }
+
+    public static boolean isStrongPassword(String password) {
+        return password != null && PASSWORD_PATTERN.matcher(password).matches();
+    }
+}
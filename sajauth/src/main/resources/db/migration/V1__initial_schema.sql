@@ -0,0 +1,67 @@
+-- Schéma initial, tel que ddl-auto=update le produisait à partir des entités.
+-- Idempotent : sur une base déjà créée par Hibernate, seuls les objets manquants sont ajoutés.
+
+create table if not exists roles (
+    id   bigint generated by default as identity primary key,
+    name varchar(255)
+);
+
+create table if not exists users (
+    id       bigint generated by default as identity primary key,
+    username varchar(255),
+    password varchar(255) not null,
+    email    varchar(255) not null,
+    wallet   varchar(255),
+    enabled  boolean default false not null,
+    role     bigint constraint fk_users_role references roles (id)
+);
+
+-- Connexion (UserRepository.findAuthStateByEmail) et inscription (existsByEmail) : lecture par email
+-- servie par l'index seul, sans accès à la table
+create unique index if not exists uk_users_email on users (email) include (id, password, enabled, role);
+
+create table if not exists user_token (
+    id              bigint generated by default as identity primary key,
+    user_id         bigint constraint fk_user_token_user references users (id),
+    refresh_token   varchar(1024),
+    token_hash      bytea constraint uk_user_token_token_hash unique,
+    creation_date   timestamp(6),
+    expiration_date timestamp(6)
+);
+
+-- Révocation de toutes les sessions d'un utilisateur
+create index if not exists idx_user_token_user_id on user_token (user_id);
+-- Purge par ExpiredTokenReaper
+create index if not exists idx_user_token_expiration_date on user_token (expiration_date, id);
+
+create table if not exists verification_token (
+    id         bigint generated by default as identity primary key,
+    user_id    bigint not null constraint fk_verification_token_user references users (id),
+    token_hash bytea not null constraint uk_verification_token_token_hash unique,
+    mail_type  varchar(32) not null check (mail_type in ('MAIL_CONFIRMATION', 'RESET_PWD')),
+    expires_at timestamp(6) not null
+);
+
+create index if not exists idx_verification_token_user_id on verification_token (user_id);
+create index if not exists idx_verification_token_expires_at on verification_token (expires_at, id);
+
+create table if not exists mail_outbox (
+    id              bigint generated by default as identity primary key,
+    recipient       varchar(255) not null,
+    username        varchar(255),
+    mail_type       varchar(255) not null,
+    token           varchar(255),
+    status          varchar(255) not null check (status in ('PENDING', 'SENT', 'FAILED')),
+    attempts        integer default 0 not null,
+    next_attempt_at timestamp(6) not null,
+    created_at      timestamp(6),
+    last_error      varchar(512)
+);
+
+create index if not exists idx_mail_outbox_status_next_attempt on mail_outbox (status, next_attempt_at);
+create index if not exists idx_mail_outbox_recipient_type on mail_outbox (recipient, mail_type);
+
+create table if not exists rate_limit_bucket (
+    bucket_key varchar(255) primary key,
+    tat        bigint not null
+);
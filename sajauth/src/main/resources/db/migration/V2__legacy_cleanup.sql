@@ -0,0 +1,37 @@
+-- Nettoyage des bases créées par ddl-auto=update
+
+-- Les inscriptions cherchaient le rôle "USER" et créaient un nouveau ROLE_USER à chaque fois :
+-- les utilisateurs sont rattachés au plus ancien rôle de chaque nom, puis les doublons sont supprimés
+update users u
+set role = (select min(r2.id) from roles r1 join roles r2 on r2.name = r1.name where r1.id = u.role)
+where u.role is not null;
+
+delete from roles r
+where exists (select 1 from roles older where older.name = r.name and older.id < r.id);
+
+alter table roles add constraint uk_roles_name unique (name);
+
+-- Unicité de l'email portée par uk_users_email (index couvrant) : la contrainte générée par Hibernate fait doublon
+alter table users drop constraint if exists uk6dotkott2kjsp8vw4d0m25fb7;
+
+-- Liens de confirmation ou de réinitialisation déjà envoyés : le token encore valide est repris dans verification_token,
+-- sous la même empreinte que VerificationTokenService (SHA-256 du token en UTF-8). L'ancienne colonne servait aux deux
+-- usages : un compte non activé attend sa confirmation, un compte activé une réinitialisation
+do $$
+begin
+    if exists (select 1 from information_schema.columns
+               where table_schema = current_schema() and table_name = 'users' and column_name = 'verification_token') then
+        insert into verification_token (user_id, token_hash, mail_type, expires_at)
+        select id, sha256(convert_to(verification_token, 'UTF8')),
+               case when enabled then 'RESET_PWD' else 'MAIL_CONFIRMATION' end,
+               verification_token_expiry
+        from users
+        where verification_token is not null and verification_token_expiry > now();
+    end if;
+end $$;
+
+-- Colonnes d'entités supprimées : compteur d'échecs de connexion (remplacé par le rate limiter)
+-- et token de vérification (table verification_token)
+alter table users drop column if exists login_attempts;
+alter table users drop column if exists verification_token;
+alter table users drop column if exists verification_token_expiry;
@@ -0,0 +1,9 @@
+-- Clés ES256 de signature des tokens (SigningKeyService), publiées par /api/v1/auth/jwks
+create table signing_key (
+    kid          varchar(64) primary key,
+    algorithm    varchar(16) not null,
+    public_key   bytea not null,
+    private_key  bytea not null,
+    activates_at timestamp(6) with time zone not null constraint uk_signing_key_activates_at unique,
+    retires_at   timestamp(6) with time zone not null
+);
@@ -0,0 +1,10 @@
+-- Tokens révoqués avant leur expiration (déconnexion), relus par toutes les instances
+create table revoked_token (
+    id         bigint generated by default as identity primary key,
+    jti        varchar(64) not null constraint uk_revoked_token_jti unique,
+    expires_at timestamp(6) not null,
+    revoked_at timestamp(6) not null
+);
+
+create index idx_revoked_token_revoked_at on revoked_token (revoked_at);
+create index idx_revoked_token_expires_at on revoked_token (expires_at, id);
@@ -0,0 +1,16 @@
+-- Une ligne de user_token par session (appareil) au lieu d'une seule par utilisateur
+
+alter table user_token add column session_id varchar(36);
+alter table user_token add column device varchar(255);
+alter table user_token add column last_used_at timestamp(6);
+
+-- Sessions existantes : leur refresh token n'a pas de claim sid, elles sont retrouvées par empreinte
+update user_token set session_id = 'legacy-' || id, last_used_at = coalesce(creation_date, current_timestamp);
+
+alter table user_token alter column session_id set not null;
+alter table user_token alter column last_used_at set not null;
+alter table user_token add constraint uk_user_token_session_id unique (session_id);
+
+-- Révocation de toutes les sessions d'un utilisateur et éviction des moins récemment utilisées
+drop index if exists idx_user_token_user_id;
+create index if not exists idx_user_token_user_id_last_used_at on user_token (user_id, last_used_at);
@@ -0,0 +1,7 @@
+-- Refresh concurrents d'une même session : token précédent accepté pendant un court délai, rotation en verrouillage optimiste
+
+alter table user_token add column previous_token_hash bytea;
+alter table user_token add column rotated_at timestamp(6);
+alter table user_token add column version bigint not null default 0;
+
+create index if not exists idx_user_token_previous_token_hash on user_token (previous_token_hash);
@@ -0,0 +1,3 @@
+-- Emails abandonnés : le token brut n'est plus conservé, comme pour les emails envoyés
+
+update mail_outbox set token = null where status = 'FAILED';
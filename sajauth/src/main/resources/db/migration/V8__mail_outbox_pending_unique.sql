@@ -0,0 +1,12 @@
+-- Un seul email en attente par destinataire et par type : enqueue fait un upsert sur cet index.
+-- Doublons créés par des envois concurrents : seul le plus récent (dernier token) est conservé
+
+delete from mail_outbox m
+using mail_outbox newer
+where m.status = 'PENDING'
+  and newer.status = 'PENDING'
+  and newer.recipient = m.recipient
+  and newer.mail_type = m.mail_type
+  and newer.id > m.id;
+
+create unique index uk_mail_outbox_pending on mail_outbox (recipient, mail_type) where status = 'PENDING';
@@ -0,0 +1,206 @@
+package com.ethereum.sajauth.reactive;
+
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.reactive.services.ReactiveRefreshTokenRotator;
+import com.ethereum.sajauth.reactive.services.ReactiveUserTokenService;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Variante réactive sur Netty et un vrai PostgreSQL (embarqué) : schéma Flyway, lecture R2DBC et rotation concurrente.
+// WebTestClient du port aléatoire, requêtes réelles depuis la boucle locale (déclarée IP de confiance du RequestThrottler)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.main.web-application-type=reactive", // servlet aussi sur le classpath : WebApplicationType de main()
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"app.ratelimit.trusted-ips=127.0.0.1,0:0:0:0:0:0:0:1", // rafale de refresh au-delà de la limite par IP
+		"jwt.secret.key=ZDg4MGExNmQ1ZmE5NmZhZDNmOWMwZGRiNzU1ZDY2YmMxZWZmMDUwODk5MjE3YmQ5"
+})
+class ReactiveAuthControllerTests {
+
+	private static final int PARALLEL_REFRESHES = 32;
+
+	private static final EmbeddedPostgres postgres = startPostgres();
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start(); // arrêté par un hook d'arrêt de la JVM
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Connexion R2DBC déduite de spring.datasource.url par ReactiveDatabaseConfig
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@Autowired
+	private WebTestClient webTestClient;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private JwtUtil jwtUtil;
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
+	@Autowired
+	private ReactiveUserTokenService userTokenService;
+	@Autowired
+	private ReactiveRefreshTokenRotator refreshTokenRotator;
+
+	private Long userId;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("INSERT INTO roles (name) VALUES ('USER')");
+		jdbcTemplate.update("INSERT INTO users (email, password, enabled, role) SELECT 'reactive@test.fr', 'hash', true, id FROM roles");
+		userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'reactive@test.fr'", Long.class);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("DELETE FROM user_token");
+		jdbcTemplate.update("DELETE FROM users");
+		jdbcTemplate.update("DELETE FROM roles");
+	}
+
+	// Session telle que la crée UserTokenService à la connexion, sur la variante servlet
+	private String createSession() {
+		Date now = new Date();
+		String sessionId = UUID.randomUUID().toString();
+		String refreshToken = jwtUtil.generateToken(userId, "reactive@test.fr", JwtTokenEnum.REFRESH.getId(), now, sessionId);
+		jdbcTemplate.update("""
+				INSERT INTO user_token (user_id, session_id, token_hash, creation_date, last_used_at, expiration_date)
+				VALUES (?, ?, ?, ?, ?, ?)
+				""", userId, sessionId, jwtUtil.hashRefreshToken(refreshToken), now, now,
+				jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), now));
+		return refreshToken;
+	}
+
+	@Test
+	void validateTokenAuthenticatesAndHonoursRevocation() {
+		String accessToken = jwtUtil.generateToken(userId, "reactive@test.fr", JwtTokenEnum.ACCESS.getId(), new Date(), "session");
+
+		webTestClient.get().uri("/api/v1/validate-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.userId").isEqualTo(userId)
+				.jsonPath("$.role").isEqualTo("ROLE_USER");
+
+		webTestClient.get().uri("/api/v1/validate-token").exchange().expectStatus().isForbidden();
+
+		tokenRevocationService.revoke(jwtUtil.extractClaims(accessToken));
+		webTestClient.get().uri("/api/v1/validate-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	@Test
+	void parallelRefreshesShareOneRotation() {
+		String refreshToken = createSession();
+
+		List<EntityExchangeResult<byte[]>> results = Flux.range(0, PARALLEL_REFRESHES)
+				.parallel(PARALLEL_REFRESHES)
+				.runOn(Schedulers.boundedElastic())
+				.map(i -> webTestClient.get().uri("/api/v1/auth/refresh-token").cookie("refreshToken", refreshToken)
+						.exchange()
+						.expectBody()
+						.returnResult())
+				.sequential()
+				.collectList()
+				.block();
+
+		assertNotNull(results);
+		assertTrue(results.stream().allMatch(result -> result.getStatus().is2xxSuccessful()), "aucun refus");
+
+		// Un seul nouveau refresh token, enregistré comme token courant de la session
+		List<String> cookies = results.stream()
+				.map(result -> result.getResponseCookies().getFirst("refreshToken"))
+				.filter(Objects::nonNull)
+				.map(ResponseCookie::getValue)
+				.distinct()
+				.toList();
+		assertEquals(1, cookies.size());
+		assertArrayEquals(jwtUtil.hashRefreshToken(cookies.get(0)),
+				jdbcTemplate.queryForObject("SELECT token_hash FROM user_token", byte[].class));
+		assertEquals(1L, jdbcTemplate.queryForObject("SELECT version FROM user_token", Long.class));
+	}
+
+	@Test
+	void reusedRefreshTokenRevokesSession() {
+		ReflectionTestUtils.setField(userTokenService, "refreshGraceMillis", 0L);
+		ReflectionTestUtils.setField(refreshTokenRotator, "refreshGraceMillis", 0L);
+		try {
+			String refreshToken = createSession();
+
+			webTestClient.get().uri("/api/v1/auth/refresh-token").cookie("refreshToken", refreshToken)
+					.exchange()
+					.expectStatus().isOk();
+			webTestClient.get().uri("/api/v1/auth/refresh-token").cookie("refreshToken", refreshToken)
+					.exchange()
+					.expectStatus().isUnauthorized();
+
+			assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM user_token", Integer.class));
+		} finally {
+			ReflectionTestUtils.setField(userTokenService, "refreshGraceMillis", 10_000L);
+			ReflectionTestUtils.setField(refreshTokenRotator, "refreshGraceMillis", 10_000L);
+		}
+	}
+
+	@Test
+	void disabledAccountGetsNoNewTokens() {
+		String refreshToken = createSession();
+		jdbcTemplate.update("UPDATE users SET enabled = false WHERE id = ?", userId);
+
+		webTestClient.get().uri("/api/v1/auth/refresh-token").cookie("refreshToken", refreshToken)
+				.exchange()
+				.expectStatus().isUnauthorized();
+
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM user_token", Integer.class));
+	}
+
+	@Test
+	void legacySessionIsMigratedOnFirstRefresh() {
+		Date now = new Date();
+		String sessionId = UUID.randomUUID().toString();
+		String refreshToken = jwtUtil.generateToken(userId, "reactive@test.fr", JwtTokenEnum.REFRESH.getId(), now, sessionId);
+		jdbcTemplate.update("""
+				INSERT INTO user_token (user_id, session_id, refresh_token, creation_date, last_used_at, expiration_date)
+				VALUES (?, ?, ?, ?, ?, ?)
+				""", userId, sessionId, jwtUtil.legacyHashRefreshToken(refreshToken), now, now,
+				jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), now));
+
+		webTestClient.get().uri("/api/v1/auth/refresh-token").cookie("refreshToken", refreshToken)
+				.exchange()
+				.expectStatus().isOk();
+
+		assertNull(jdbcTemplate.queryForObject("SELECT refresh_token FROM user_token", String.class));
+	}
+}
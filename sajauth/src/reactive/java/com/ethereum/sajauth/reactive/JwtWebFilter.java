@@ -0,0 +1,128 @@
+package com.ethereum.sajauth.reactive;
+
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.ratelimit.RequestThrottler;
+import com.ethereum.sajauth.reactive.repositories.ReactiveUserRepository;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import com.ethereum.sajauth.services.UserAuthCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+
+// Equivalent de JwtFilter pour WebFlux, inséré dans la chaîne Spring Security par ReactiveSecurityConfig.
+// Seule une absence du cache lit la base, sans bloquer le thread de la boucle d'événements
+public class JwtWebFilter implements WebFilter {
+
+    private final JwtUtil jwtUtil;
+    private final ReactiveUserRepository userRepository;
+    private final UserAuthCache userAuthCache;
+    private final RequestThrottler requestThrottler;
+    private final TokenRevocationService tokenRevocationService;
+
+    public JwtWebFilter(JwtUtil jwtUtil, ReactiveUserRepository userRepository, UserAuthCache userAuthCache,
+                        RequestThrottler requestThrottler, TokenRevocationService tokenRevocationService) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        this.userAuthCache = userAuthCache;
+        this.requestThrottler = requestThrottler;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        // Limitation de requête avant tout parsing de JWT ou accès base
+        long retryAfter = requestThrottler.check(request.getPath().value(), clientIp(request));
+        if (retryAfter > 0)
+            return tooManyRequests(exchange, retryAfter);
+
+        if (authHeader == null || !authHeader.startsWith("Bearer "))
+            return chain.filter(exchange);
+
+        Claims claims;
+        try {
+            claims = jwtUtil.extractClaims(authHeader.substring(7)); // Token parsé une seule fois par requête
+        } catch (JwtException e) {
+            return reject(exchange, HttpStatus.UNAUTHORIZED, "Token invalide");
+        }
+
+        // Limite par compte, sur le sujet d'un token dont la signature vient d'être vérifiée
+        retryAfter = requestThrottler.checkAccount(request.getPath().value(), claims.getSubject());
+        if (retryAfter > 0)
+            return tooManyRequests(exchange, retryAfter);
+
+        // Filtre de Bloom en mémoire : pas de requête pour un token non révoqué
+        if (tokenRevocationService.isRevoked(claims))
+            return reject(exchange, HttpStatus.UNAUTHORIZED, "Token révoqué");
+
+        if (!jwtUtil.isAccessToken(claims))
+            return reject(exchange, HttpStatus.UNAUTHORIZED, "Token d'accès requis");
+
+        String email = claims.getSubject();
+        if (email == null)
+            return chain.filter(exchange);
+
+        return loadUserAuthState(email).flatMap(userState -> {
+            if (userState.isEmpty())
+                return chain.filter(exchange);
+
+            if (!userState.get().isEnabled())
+                return reject(exchange, HttpStatus.FORBIDDEN, "Compte non activé");
+
+            if (!jwtUtil.validateToken(claims, userState.get().getEmail()))
+                return chain.filter(exchange);
+
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    userState.get(), null, Collections.singletonList(new SimpleGrantedAuthority(userState.get().getRole())));
+            return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+        });
+    }
+
+    // Cache partagé avec les autres lectures de l'instance ; Optional vide pour un email inconnu en base
+    private Mono<Optional<UserAuthState>> loadUserAuthState(String email) {
+        Optional<UserAuthState> cached = userAuthCache.getIfPresent(email);
+        if (cached != null)
+            return Mono.just(cached);
+
+        return userRepository.findAuthStateByEmail(email)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(userState -> userAuthCache.put(email, userState));
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : "";
+    }
+
+    private static Mono<Void> tooManyRequests(ServerWebExchange exchange, long retryAfter) {
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, "Trop de requêtes, veuillez réessayer plus tard");
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8))));
+    }
+}
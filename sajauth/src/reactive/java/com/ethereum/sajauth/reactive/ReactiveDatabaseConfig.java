@@ -0,0 +1,65 @@
+package com.ethereum.sajauth.reactive;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.PoolingConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.StringJoiner;
+
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveDatabaseConfig {
+
+    private static final String JDBC_POSTGRESQL_PREFIX = "jdbc:postgresql:";
+
+    // Sans spring.r2dbc.url : même base que spring.datasource.url, sans dupliquer l'URL ni les identifiants.
+    // jdbc:postgresql://hôte/base?options -> r2dbc:pool:postgresql://hôte/base?options
+    @Bean
+    @ConditionalOnExpression("'${spring.r2dbc.url:}' == ''")
+    public ConnectionFactory connectionFactory(DataSourceProperties dataSourceProperties,
+                                               @Value("${app.reactive.pool.max-size:10}") int maxSize) {
+        String jdbcUrl = dataSourceProperties.determineUrl();
+        if (jdbcUrl == null || !jdbcUrl.startsWith(JDBC_POSTGRESQL_PREFIX))
+            throw new IllegalStateException("spring.r2dbc.url est requise quand spring.datasource.url n'est pas une URL PostgreSQL");
+
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder
+                .withUrl("r2dbc:pool:postgresql:" + withoutCredentials(jdbcUrl.substring(JDBC_POSTGRESQL_PREFIX.length())))
+                .configure(options -> options.option(PoolingConnectionFactoryProvider.MAX_SIZE, maxSize));
+        if (StringUtils.hasText(dataSourceProperties.determineUsername()))
+            builder.username(dataSourceProperties.determineUsername());
+        if (StringUtils.hasText(dataSourceProperties.determinePassword()))
+            builder.password(dataSourceProperties.determinePassword());
+
+        return builder.build();
+    }
+
+    // DataSourceAutoConfiguration s'efface devant une ConnectionFactory : pool JDBC déclaré ici pour Flyway, JPA et les tâches planifiées
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // ?user=...&password=... accepté par le pilote JDBC mais refusé dans une URL R2DBC : identifiants de spring.datasource.*
+    private static String withoutCredentials(String url) {
+        int query = url.indexOf('?');
+        if (query < 0)
+            return url;
+
+        StringJoiner options = new StringJoiner("&", "?", "").setEmptyValue("");
+        for (String option : url.substring(query + 1).split("&")) {
+            if (!option.startsWith("user=") && !option.startsWith("password="))
+                options.add(option);
+        }
+        return url.substring(0, query) + options;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ethereum.sajauth.reactive;
+
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.entities.SigningKey;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.ratelimit.RequestThrottler;
+import com.ethereum.sajauth.repositories.SigningKeyRepository;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import com.ethereum.sajauth.services.SigningKeyService;
+import com.ethereum.sajauth.services.UserAuthCache;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
+
+// Variante non bloquante pour le trafic validate-token et refresh-token de l'API Nest (profil Maven reactive).
+// Requêtes servies par WebFlux et R2DBC ; JDBC/JPA ne servent qu'au démarrage (Flyway, clés de signature)
+// et aux tâches planifiées partagées avec la variante servlet (révocations, rotation des clés).
+// Connexion, inscription et les autres routes restent sur SajauthApplication
+// Pas de transaction R2DBC (une requête par écriture) ni d'utilisateur en mémoire (authentification par JwtWebFilter)
+@SpringBootApplication(exclude = {R2dbcTransactionManagerAutoConfiguration.class, ReactiveUserDetailsServiceAutoConfiguration.class})
+@EnableScheduling
+@EntityScan(basePackageClasses = SigningKey.class)
+@EnableJpaRepositories(basePackageClasses = SigningKeyRepository.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SigningKeyRepository.class))
+@Import({JwtUtil.class, AuthMetrics.class, SigningKeyService.class, TokenRevocationService.class, UserAuthCache.class,
+        RequestThrottler.class})
+public class ReactiveSajauthApplication {
+
+    // Tomcat, présent pour les classes partagées, serait choisi avant Netty
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveSajauthApplication.class)
+                .web(WebApplicationType.REACTIVE) // spring-boot-starter-web reste sur le classpath (classes partagées)
+                .properties(Map.of(
+                        "management.endpoints.web.exposure.include", "health,prometheus",
+                        "management.metrics.tags.application", "sajauth-reactive",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache", "false",
+                        "spring.flyway.baseline-on-migrate", "true",
+                        "spring.flyway.baseline-version", "0",
+                        // Pool JDBC réservé aux tâches planifiées
+                        "spring.datasource.hikari.maximum-pool-size", "2"))
+                .run(args);
+    }
+}
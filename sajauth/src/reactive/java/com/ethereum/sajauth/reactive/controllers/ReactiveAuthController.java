@@ -0,0 +1,65 @@
+package com.ethereum.sajauth.reactive.controllers;
+
+import com.ethereum.sajauth.DTO.LoginResponse;
+import com.ethereum.sajauth.DTO.MessageResponse;
+import com.ethereum.sajauth.DTO.TokenClaimsResponse;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.reactive.services.ReactiveRefreshTokenRotator;
+import com.ethereum.sajauth.utils.CookieUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+// Routes de AuthController servies par la variante réactive, mêmes chemins et mêmes réponses
+@RestController
+@RequestMapping("/api/v1")
+public class ReactiveAuthController {
+
+    private final JwtUtil jwtUtil;
+    private final ReactiveRefreshTokenRotator refreshTokenRotator;
+
+    public ReactiveAuthController(JwtUtil jwtUtil, ReactiveRefreshTokenRotator refreshTokenRotator) {
+        this.jwtUtil = jwtUtil;
+        this.refreshTokenRotator = refreshTokenRotator;
+    }
+
+    @GetMapping("/validate-token")
+    public ResponseEntity<?> validateToken(@AuthenticationPrincipal UserAuthState userState) {
+        // Etat déjà chargé par JwtWebFilter : pas d'accès base ici
+        return ResponseEntity.ok(new TokenClaimsResponse(userState.getUserId(), userState.getEmail(), userState.getRole()));
+    }
+
+    @GetMapping("/auth/refresh-token")
+    public Mono<ResponseEntity<?>> refreshToken(@CookieValue("refreshToken") String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractClaims(refreshToken); // Vérifie la signature et l'expiration
+        } catch (ExpiredJwtException e) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Token expiré")));
+        } catch (JwtException e) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Token invalide")));
+        }
+        if (claims.getSubject() == null)
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Token invalide ou révoqué")));
+
+        return refreshTokenRotator.refresh(refreshToken, claims)
+                .<ResponseEntity<?>>map(tokens -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    // Pas de nouveau refresh token pour un appel arrivé après la rotation : le cookie posé par celle-ci est conservé
+                    if (tokens.getRefreshToken() != null)
+                        response.header(HttpHeaders.SET_COOKIE, CookieUtils.refreshTokenResponseCookie(tokens.getRefreshToken()).toString());
+                    return response.body(new LoginResponse(tokens.getAccessToken(), tokens.getUserId()));
+                })
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Token invalide ou révoqué")));
+    }
+}
@@ -0,0 +1,38 @@
+package com.ethereum.sajauth.reactive.repositories;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+// Equivalent R2DBC de UserRepository, limité à ce que lit la variante réactive
+@Repository
+public class ReactiveUserRepository {
+
+    // Même lecture que UserRepository.findAuthStateByEmail, servie par l'index uk_users_email.
+    // Sans le mot de passe : pas de connexion sur cette variante
+    private static final String FIND_AUTH_STATE_SQL = """
+            SELECT u.id, u.email, r.name, u.enabled FROM users u
+            LEFT JOIN roles r ON r.id = u.role
+            WHERE u.email = :email
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<UserAuthState> findAuthStateByEmail(String email) {
+        return databaseClient.sql(FIND_AUTH_STATE_SQL)
+                .bind("email", email)
+                .map(row -> new UserAuthState(
+                        row.get(0, Long.class),
+                        row.get(1, String.class),
+                        null,
+                        CustomUserDetailsService.roleName(row.get(2, String.class)),
+                        Boolean.TRUE.equals(row.get(3, Boolean.class))))
+                .one();
+    }
+}
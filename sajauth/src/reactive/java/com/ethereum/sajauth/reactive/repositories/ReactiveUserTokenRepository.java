@@ -0,0 +1,106 @@
+package com.ethereum.sajauth.reactive.repositories;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// Equivalent R2DBC de UserTokenRepository pour le refresh : une requête par opération, sans transaction.
+// Dates en heure locale de la JVM, comme les écrit Hibernate dans les colonnes timestamp
+@Repository
+public class ReactiveUserTokenRepository {
+
+    // Session et état de son compte, lus ensemble pour refuser un compte désactivé
+    private static final String SESSION_COLUMNS = "t.id, t.user_id, t.session_id, t.token_hash, t.expiration_date, t.rotated_at, t.version, u.enabled";
+
+    private static final String FIND_BY_CURRENT_OR_PREVIOUS_HASH_SQL = "SELECT " + SESSION_COLUMNS +
+            " FROM user_token t JOIN users u ON u.id = t.user_id WHERE t.token_hash = :tokenHash OR t.previous_token_hash = :tokenHash";
+
+    // Limitée aux sessions de l'utilisateur du token (index user_id) : refresh_token n'est pas indexé
+    // et cette requête suit chaque empreinte inconnue
+    private static final String MIGRATE_LEGACY_TOKEN_SQL =
+            "UPDATE user_token t SET token_hash = :tokenHash, refresh_token = NULL, version = t.version + 1 FROM users u " +
+            "WHERE u.id = t.user_id AND t.user_id = :userId AND t.refresh_token = :legacyHash RETURNING " + SESSION_COLUMNS;
+
+    // Contrôle de version de UserToken : 0 ligne si une autre rotation est passée entre la lecture et l'écriture
+    private static final String ROTATE_SQL = """
+            UPDATE user_token SET previous_token_hash = :previousHash, token_hash = :tokenHash, rotated_at = :rotatedAt,
+                last_used_at = :rotatedAt, expiration_date = :expirationDate, version = version + 1
+            WHERE id = :id AND version = :version
+            """;
+
+    private static final String DELETE_BY_SESSION_ID_SQL = "DELETE FROM user_token WHERE session_id = :sessionId AND user_id = :userId";
+    private static final String DELETE_BY_ID_SQL = "DELETE FROM user_token WHERE id = :id";
+
+    private final DatabaseClient databaseClient;
+
+    // Colonnes de user_token utiles au refresh
+    public record Session(Long id, Long userId, String sessionId, byte[] tokenHash, LocalDateTime expirationDate,
+                          LocalDateTime rotatedAt, long version, boolean userEnabled) {
+    }
+
+    public ReactiveUserTokenRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Session dont c'est le token courant, ou le token remplacé par la dernière rotation
+    public Mono<Session> findByCurrentOrPreviousTokenHash(byte[] tokenHash) {
+        return databaseClient.sql(FIND_BY_CURRENT_OR_PREVIOUS_HASH_SQL)
+                .bind("tokenHash", tokenHash)
+                .map(ReactiveUserTokenRepository::toSession)
+                .one();
+    }
+
+    // Session créée avant le passage à l'empreinte HMAC : convertie et relue en une requête
+    public Mono<Session> migrateLegacyToken(Long userId, String legacyHash, byte[] tokenHash) {
+        return databaseClient.sql(MIGRATE_LEGACY_TOKEN_SQL)
+                .bind("tokenHash", tokenHash)
+                .bind("userId", userId)
+                .bind("legacyHash", legacyHash)
+                .map(ReactiveUserTokenRepository::toSession)
+                .one();
+    }
+
+    public Mono<Boolean> rotate(Session session, byte[] tokenHash, LocalDateTime rotatedAt, LocalDateTime expirationDate) {
+        return databaseClient.sql(ROTATE_SQL)
+                .bind("previousHash", session.tokenHash())
+                .bind("tokenHash", tokenHash)
+                .bind("rotatedAt", rotatedAt)
+                .bind("expirationDate", expirationDate)
+                .bind("id", session.id())
+                .bind("version", session.version())
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows == 1);
+    }
+
+    // Réutilisation d'un refresh token déjà remplacé
+    public Mono<Long> deleteBySessionId(String sessionId, Long userId) {
+        return databaseClient.sql(DELETE_BY_SESSION_ID_SQL)
+                .bind("sessionId", sessionId)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql(DELETE_BY_ID_SQL)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Session toSession(Readable row) {
+        return new Session(
+                row.get(0, Long.class),
+                row.get(1, Long.class),
+                row.get(2, String.class),
+                row.get(3, byte[].class),
+                row.get(4, LocalDateTime.class),
+                row.get(5, LocalDateTime.class),
+                row.get(6, Long.class),
+                Boolean.TRUE.equals(row.get(7, Boolean.class)));
+    }
+}
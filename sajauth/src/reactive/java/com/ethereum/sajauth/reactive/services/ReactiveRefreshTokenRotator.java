@@ -0,0 +1,79 @@
+package com.ethereum.sajauth.reactive.services;
+
+import com.ethereum.sajauth.DTO.TokenResponse;
+import com.ethereum.sajauth.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// RefreshTokenRotator sans thread bloqué : les appels reçus pendant la rotation attendent le même résultat.
+// La rotation n'est pas liée à la requête qui l'a lancée, une déconnexion du client ne l'interrompt pas
+@Service
+public class ReactiveRefreshTokenRotator {
+
+    @Value("${app.sessions.refresh-grace-ms:10000}")
+    private long refreshGraceMillis;
+
+    private final ReactiveUserTokenService userTokenService;
+    private final JwtUtil jwtUtil;
+
+    // Empreinte du refresh token présenté (comme en base) -> rotation en cours ou terminée depuis moins que le délai de grâce
+    private final ConcurrentHashMap<String, Rotation> rotations = new ConcurrentHashMap<>();
+
+    private record Rotation(CompletableFuture<Optional<TokenResponse>> result, long startedAt) {
+    }
+
+    public ReactiveRefreshTokenRotator(ReactiveUserTokenService userTokenService, JwtUtil jwtUtil) {
+        this.userTokenService = userTokenService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    public Mono<TokenResponse> refresh(String refreshToken, Claims claims) {
+        long now = System.currentTimeMillis();
+        String key = Base64.getEncoder().encodeToString(jwtUtil.hashRefreshToken(refreshToken));
+        Rotation created = new Rotation(new CompletableFuture<>(), now);
+        Rotation rotation = rotations.compute(key,
+                (digest, existing) -> existing != null && now - existing.startedAt() < refreshGraceMillis ? existing : created);
+
+        if (rotation == created)
+            rotate(key, refreshToken, claims, created);
+
+        // Annulation d'un appelant sans effet sur le résultat partagé
+        return Mono.fromFuture(rotation.result(), true).flatMap(Mono::justOrEmpty);
+    }
+
+    private void rotate(String key, String refreshToken, Claims claims, Rotation rotation) {
+        userTokenService.refreshUserTokens(refreshToken, claims)
+                // Rotation simultanée sur une autre instance : le token est maintenant le précédent de sa session
+                .onErrorResume(OptimisticLockingFailureException.class, e -> userTokenService.refreshUserTokens(refreshToken, claims))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .subscribe(tokens -> {
+                    // Refus non conservé : un nouvel essai est réévalué en base
+                    if (tokens.isEmpty())
+                        rotations.remove(key, rotation);
+                    rotation.result().complete(tokens);
+                }, e -> {
+                    rotations.remove(key, rotation);
+                    rotation.result().completeExceptionally(e);
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${app.sessions.refresh-grace-ms:10000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        rotations.values().removeIf(rotation -> rotation.result().isDone() && now - rotation.startedAt() >= refreshGraceMillis);
+    }
+
+    int size() {
+        return rotations.size();
+    }
+}
@@ -0,0 +1,119 @@
+package com.ethereum.sajauth.reactive.services;
+
+import com.ethereum.sajauth.DTO.TokenResponse;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.reactive.repositories.ReactiveUserTokenRepository;
+import com.ethereum.sajauth.reactive.repositories.ReactiveUserTokenRepository.Session;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+
+// Refresh de UserTokenService sur R2DBC, mêmes règles : rotation de la session du token seulement, délai de grâce
+// pour le token précédent, révocation de la session en cas de réutilisation, refus d'un compte désactivé.
+// Mono vide : refresh refusé
+@Service
+public class ReactiveUserTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserTokenService.class);
+
+    @Value("${app.sessions.refresh-grace-ms:10000}")
+    private long refreshGraceMillis;
+
+    private final ReactiveUserTokenRepository userTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final AuthMetrics authMetrics;
+
+    public ReactiveUserTokenService(ReactiveUserTokenRepository userTokenRepository, JwtUtil jwtUtil, AuthMetrics authMetrics) {
+        this.userTokenRepository = userTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.authMetrics = authMetrics;
+    }
+
+    // Une rotation concurrente sur la même ligne termine en OptimisticLockingFailureException
+    public Mono<TokenResponse> refreshUserTokens(String refreshToken, Claims claims) {
+        Long userId = claims.get("userId", Long.class);
+        byte[] tokenHash = jwtUtil.hashRefreshToken(refreshToken);
+
+        return userTokenRepository.findByCurrentOrPreviousTokenHash(tokenHash)
+                .switchIfEmpty(Mono.defer(() -> userId == null
+                        ? Mono.empty()
+                        : userTokenRepository.migrateLegacyToken(userId, jwtUtil.legacyHashRefreshToken(refreshToken), tokenHash)))
+                .filter(session -> session.userId().equals(userId))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(session -> session.isEmpty()
+                        ? revokeReusedSession(claims, userId)
+                        : refreshSession(session.get(), tokenHash, claims));
+    }
+
+    private Mono<TokenResponse> refreshSession(Session session, byte[] tokenHash, Claims claims) {
+        // Compte désactivé depuis la connexion : plus de nouveaux tokens, la session est fermée
+        if (!session.userEnabled())
+            return userTokenRepository.deleteById(session.id()).then(Mono.empty());
+
+        Date now = new Date();
+        if (toMillis(session.expirationDate()) < now.getTime())
+            return userTokenRepository.deleteById(session.id()).then(Mono.empty());
+
+        if (!Arrays.equals(session.tokenHash(), tokenHash))
+            return refreshFromPreviousToken(session, claims, now);
+
+        TokenResponse tokenResponse = new TokenResponse();
+        tokenResponse.setAccessToken(jwtUtil.generateToken(session.userId(), claims.getSubject(), JwtTokenEnum.ACCESS.getId(), now, session.sessionId()));
+        tokenResponse.setRefreshToken(jwtUtil.generateToken(session.userId(), claims.getSubject(), JwtTokenEnum.REFRESH.getId(), now, session.sessionId()));
+        tokenResponse.setUserId(session.userId());
+
+        return userTokenRepository.rotate(session, jwtUtil.hashRefreshToken(tokenResponse.getRefreshToken()), toLocal(now),
+                        toLocal(jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), now)))
+                .flatMap(rotated -> rotated
+                        ? Mono.just(tokenResponse)
+                        : Mono.error(new OptimisticLockingFailureException("Session " + session.sessionId() + " modifiée par une autre rotation")));
+    }
+
+    // Refresh parallèle arrivé après la rotation : nouveau token d'accès seulement, la ligne n'est pas modifiée
+    private Mono<TokenResponse> refreshFromPreviousToken(Session session, Claims claims, Date now) {
+        if (session.rotatedAt() == null || now.getTime() - toMillis(session.rotatedAt()) >= refreshGraceMillis)
+            return revokeReusedSession(claims, session.userId());
+
+        TokenResponse tokenResponse = new TokenResponse();
+        tokenResponse.setAccessToken(jwtUtil.generateToken(session.userId(), claims.getSubject(), JwtTokenEnum.ACCESS.getId(), now, session.sessionId()));
+        tokenResponse.setUserId(session.userId());
+        return Mono.just(tokenResponse);
+    }
+
+    // Token déjà remplacé et hors délai de grâce : la session est révoquée pour son détenteur comme pour l'appareil légitime
+    private Mono<TokenResponse> revokeReusedSession(Claims claims, Long userId) {
+        String sessionId = claims.get(JwtUtil.SESSION_ID_CLAIM, String.class);
+        if (sessionId == null || userId == null)
+            return Mono.empty();
+
+        return userTokenRepository.deleteBySessionId(sessionId, userId)
+                .doOnNext(deleted -> {
+                    if (deleted > 0) {
+                        authMetrics.refreshTokenReused();
+                        log.warn("Refresh token réutilisé : session {} de l'utilisateur {} révoquée", sessionId, userId);
+                    }
+                })
+                .then(Mono.empty());
+    }
+
+    private static LocalDateTime toLocal(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ethereum.sajauth;
+
+import com.ethereum.sajauth.entities.Role;
+import com.ethereum.sajauth.repositories.RoleRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Profil prod sur un vrai PostgreSQL (embarqué) : le contexte ne démarre que si ehcache.xml déclare toutes les régions
+@DataJpaTest(properties = {
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("prod")
+class ProdProfileTests {
+
+	private static final EmbeddedPostgres postgres = startPostgres();
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start(); // arrêté par un hook d'arrêt de la JVM
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void rolesAreServedBySecondLevelCache() {
+		jdbcTemplate.update("INSERT INTO roles (name) VALUES ('ROLE_USER')");
+		Long id = jdbcTemplate.queryForObject("SELECT id FROM roles", Long.class);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		roleRepository.findById(id);
+		entityManager.clear();
+		statistics.clear();
+
+		// Nouveau contexte de persistance : rôle lu depuis le cache, sans requête
+		roleRepository.findById(id);
+
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getDomainDataRegionStatistics(Role.class.getName()).getHitCount());
+	}
+}
@@ -0,0 +1,37 @@
+package com.ethereum.sajauth;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+class SchemaConfigTests {
+
+	private Map<String, Object> customize(String configuredDdlAuto, Object ddlAuto) {
+		Map<String, Object> hibernateProperties = new HashMap<>();
+		if (ddlAuto != null)
+			hibernateProperties.put(AvailableSettings.HBM2DDL_AUTO, ddlAuto);
+		new SchemaConfig().validateSchemaOnly(configuredDdlAuto).customize(hibernateProperties);
+		return hibernateProperties;
+	}
+
+	@Test
+	void overriddenValueIsLogged(CapturedOutput output) {
+		assertEquals("validate", customize("update", "update").get(AvailableSettings.HBM2DDL_AUTO));
+		assertTrue(output.getOut().contains("ddl-auto=update remplacé par validate"));
+	}
+
+	@Test
+	void explicitNoneIsKept(CapturedOutput output) {
+		assertNull(customize("none", null).get(AvailableSettings.HBM2DDL_AUTO));
+		assertEquals("validate", customize("", null).get(AvailableSettings.HBM2DDL_AUTO));
+		assertFalse(output.getOut().contains("remplacé par validate"));
+	}
+}
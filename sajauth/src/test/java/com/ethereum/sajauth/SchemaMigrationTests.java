@@ -0,0 +1,113 @@
+package com.ethereum.sajauth;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Migrations Flyway appliquées sur un vrai PostgreSQL (embarqué), puis validées par Hibernate contre les entités
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaMigrationTests {
+
+	private static final EmbeddedPostgres postgres = startPostgres();
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start(); // arrêté par un hook d'arrêt de la JVM
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private Flyway flyway;
+
+	@Test
+	void migrationsMatchEntities() {
+		// Le contexte ne démarre que si le schéma migré passe la validation Hibernate
+		assertEquals("8", flyway.info().current().getVersion().getVersion());
+	}
+
+	@Test
+	void loginLookupIsServedByCoveringIndex() {
+		jdbcTemplate.update("INSERT INTO roles (name) VALUES ('ROLE_USER')");
+		jdbcTemplate.update("INSERT INTO users (email, password, enabled, role) SELECT 'login@test.fr', 'hash', true, id FROM roles");
+
+		// Table trop petite pour que le planificateur choisisse un index de lui-même
+		jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+		jdbcTemplate.execute("SET LOCAL enable_bitmapscan = off");
+
+		// Même lecture que UserRepository.findAuthStateByEmail
+		List<String> plan = jdbcTemplate.queryForList("""
+				EXPLAIN SELECT u.id, u.email, u.password, r.name, u.enabled
+				FROM users u LEFT JOIN roles r ON r.id = u.role
+				WHERE u.email = 'login@test.fr'
+				""", String.class);
+
+		assertTrue(plan.stream().anyMatch(line -> line.contains("Index Only Scan using uk_users_email")), String.join("\n", plan));
+	}
+
+	@Test
+	void legacySchemaIsUpgraded() throws NoSuchAlgorithmException {
+		// Hors de la transaction du test : CREATE DATABASE n'y est pas permis
+		new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE legacy");
+		DataSource legacy = postgres.getDatabase("postgres", "legacy");
+		JdbcTemplate legacyJdbc = new JdbcTemplate(legacy);
+
+		// Tables telles que ddl-auto=update les avait créées, avec les rôles dupliqués par les inscriptions
+		legacyJdbc.execute("""
+				CREATE TABLE roles (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name varchar(255));
+				CREATE TABLE users (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, username varchar(255),
+				    password varchar(255) NOT NULL, email varchar(255) NOT NULL CONSTRAINT uk6dotkott2kjsp8vw4d0m25fb7 UNIQUE,
+				    wallet varchar(255), enabled boolean DEFAULT false NOT NULL, login_attempts integer DEFAULT 0 NOT NULL,
+				    verification_token varchar(255), verification_token_expiry timestamp(6),
+				    role bigint CONSTRAINT fk4c6vlshk8x83ifeoggi3exg3k REFERENCES roles (id));
+				INSERT INTO roles (name) VALUES ('ROLE_USER'), ('ROLE_USER'), ('ROLE_ADMIN'), ('ROLE_USER');
+				INSERT INTO users (email, password, role) VALUES ('a@test.fr', 'hash', 2), ('b@test.fr', 'hash', 4), ('c@test.fr', 'hash', 3);
+				-- Liens en attente : confirmation (compte non activé), réinitialisation (compte activé), lien expiré
+				UPDATE users SET verification_token = 'confirm-token', verification_token_expiry = now() + interval '1 hour' WHERE email = 'a@test.fr';
+				UPDATE users SET enabled = true, verification_token = 'reset-token', verification_token_expiry = now() + interval '5 minutes' WHERE email = 'b@test.fr';
+				UPDATE users SET verification_token = 'expired-token', verification_token_expiry = now() - interval '1 hour' WHERE email = 'c@test.fr';
+				""");
+
+		Flyway.configure().dataSource(legacy).baselineOnMigrate(true).baselineVersion("0").load().migrate();
+
+		assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), legacyJdbc.queryForList("SELECT name FROM roles ORDER BY id", String.class));
+		assertEquals(List.of(1L, 1L, 3L), legacyJdbc.queryForList("SELECT role FROM users ORDER BY email", Long.class));
+		assertFalse(legacyJdbc.queryForObject(
+				"SELECT count(*) > 0 FROM information_schema.columns WHERE table_name = 'users' AND column_name = 'login_attempts'",
+				Boolean.class));
+		// Liens encore valides repris, retrouvés par l'empreinte de VerificationTokenService
+		assertEquals(List.of("a@test.fr:MAIL_CONFIRMATION", "b@test.fr:RESET_PWD"), legacyJdbc.queryForList(
+				"SELECT u.email || ':' || t.mail_type FROM verification_token t JOIN users u ON u.id = t.user_id ORDER BY u.email", String.class));
+		assertEquals(1, legacyJdbc.queryForObject("SELECT count(*) FROM verification_token WHERE token_hash = ?", Integer.class,
+				(Object) MessageDigest.getInstance("SHA-256").digest("confirm-token".getBytes(StandardCharsets.UTF_8))));
+	}
+}
@@ -0,0 +1,120 @@
+package com.ethereum.sajauth.datasource;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.services.UserAuthCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingTests {
+
+	private ReplicaRouting routing;
+	// Cible choisie à chaque lecture : true pour le réplica
+	private final List<Boolean> targets = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		routing = new ReplicaRouting(new AuthMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(routing, "replicaUrl", "jdbc:postgresql://replica/sajauth");
+		ReflectionTestUtils.setField(routing, "readYourWritesMillis", 5000L);
+		// Transaction lecture seule ouverte par le repository
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	private Optional<String> read(boolean foundOnReplica) {
+		boolean replica = routing.routeToReplica();
+		targets.add(replica);
+		return replica && !foundOnReplica ? Optional.empty() : Optional.of("user");
+	}
+
+	@Test
+	void readsGoToReplica() {
+		assertEquals(Optional.of("user"), routing.readAccount("a@test.fr", () -> read(true)));
+		assertEquals(List.of(true), targets);
+	}
+
+	@Test
+	void writesStayOnPrimary() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+		assertFalse(routing.routeToReplica());
+	}
+
+	@Test
+	void readsOwnWritesFromPrimary() {
+		routing.markWritten("a@test.fr");
+
+		routing.readAccount("a@test.fr", () -> read(true));
+		routing.readAccount("b@test.fr", () -> read(true));
+
+		assertEquals(List.of(false, true), targets);
+	}
+
+	@Test
+	void rereadsMissingAccountOnPrimary() {
+		// Inscription faite sur une autre instance, pas encore répliquée
+		assertEquals(Optional.of("user"), routing.readAccount("new@test.fr", () -> read(false)));
+		assertEquals(List.of(true, false), targets);
+		assertTrue(routing.routeToReplica()); // pas d'épinglage résiduel sur le thread
+	}
+
+	@Test
+	void fallsBackToPrimaryWhileReplicaIsUnavailable() {
+		routing.replicaAvailable(false);
+		routing.readAccount("a@test.fr", () -> read(true));
+
+		routing.replicaAvailable(true);
+		routing.readAccount("a@test.fr", () -> read(true));
+
+		assertEquals(List.of(false, true), targets);
+	}
+
+	@Test
+	void loginReadsCredentialsOnPrimary() {
+		// Seule lecture utilisée par la connexion et JwtFilter ; la cible est relevée au moment de la requête
+		UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+				new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+					if (!method.getName().equals("findAuthStateByEmail"))
+						throw new UnsupportedOperationException(method.getName());
+					targets.add(routing.routeToReplica());
+					return Optional.of(new UserAuthState(1L, (String) args[0], "hash", "ROLE_USER", true));
+				});
+		UserAuthCache cache = new UserAuthCache();
+		ReflectionTestUtils.setField(cache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(cache, "maxSize", 10);
+		CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository, cache, routing);
+
+		userDetailsService.loadUserAuthState("a@test.fr");
+		// Compte en cache et lu sur le réplica : la connexion relit pourtant le primaire, qui seul est à jour
+		userDetailsService.loadUserByUsername("a@test.fr");
+
+		assertEquals(List.of(true, false), targets);
+	}
+
+	@Test
+	void staysOnPrimaryWithoutReplica() {
+		ReflectionTestUtils.setField(routing, "replicaUrl", "");
+		routing.markWritten("a@test.fr");
+
+		assertFalse(routing.isEnabled());
+		assertEquals(Optional.empty(), routing.readAccount("unknown@test.fr", Optional::empty));
+	}
+}
@@ -0,0 +1,58 @@
+package com.ethereum.sajauth.metrics;
+
+import com.ethereum.sajauth.entities.Role;
+import com.ethereum.sajauth.repositories.RoleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false"
+})
+@Import({RepositoryMetricsAspect.class, AuthMetrics.class, RepositoryMetricsAspectTests.MetricsConfig.class})
+class RepositoryMetricsAspectTests {
+
+	@TestConfiguration
+	@EnableAspectJAutoProxy // AopAutoConfiguration absente de @DataJpaTest
+	static class MetricsConfig {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Timer timer(String method) {
+		return meterRegistry.find("sajauth.repository").tags("repository", "RoleRepository", "method", method).timer();
+	}
+
+	@Test
+	void inheritedAndDeclaredMethodsAreTimedUnderTheirRepository() {
+		Role role = new Role();
+		role.setName("ROLE_USER");
+		roleRepository.save(role);
+		roleRepository.findByName("ROLE_USER");
+
+		// save est déclarée par CrudRepository, findByName par RoleRepository
+		assertNotNull(timer("save"));
+		assertEquals(1, timer("save").count());
+		assertNotNull(timer("findByName"));
+		assertEquals(1, timer("findByName").count());
+	}
+}
@@ -0,0 +1,56 @@
+package com.ethereum.sajauth.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRateLimiterTests {
+
+	private final InMemoryRateLimiter rateLimiter = new InMemoryRateLimiter();
+	private final RateLimitPolicy policy = new RateLimitPolicy(5, Duration.ofMinutes(5));
+
+	@Test
+	void rejectsOnceCapacityIsConsumed() {
+		for (int i = 0; i < 5; i++)
+			assertEquals(0, rateLimiter.tryAcquire("login:email:a", policy));
+
+		assertTrue(rateLimiter.retryAfter("login:email:a", policy) > 0);
+		assertTrue(rateLimiter.tryAcquire("login:email:a", policy) > 0);
+		assertEquals(0, rateLimiter.retryAfter("login:email:b", policy));
+	}
+
+	@Test
+	void resetRestoresCapacity() {
+		for (int i = 0; i < 5; i++)
+			rateLimiter.tryAcquire("login:email:a", policy);
+
+		rateLimiter.reset("login:email:a");
+
+		assertEquals(0, rateLimiter.tryAcquire("login:email:a", policy));
+	}
+
+	@Test
+	void neverGrantsMoreThanCapacityUnderContention() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch done = new CountDownLatch(200);
+		AtomicInteger granted = new AtomicInteger();
+
+		for (int i = 0; i < 200; i++) {
+			executor.execute(() -> {
+				if (rateLimiter.tryAcquire("login:ip:1.2.3.4", policy) == 0)
+					granted.incrementAndGet();
+				done.countDown();
+			});
+		}
+		done.await();
+		executor.shutdown();
+
+		assertEquals(5, granted.get());
+	}
+}
@@ -0,0 +1,95 @@
+package com.ethereum.sajauth.ratelimit;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Mêmes règles que InMemoryRateLimiterTests, sur l'upsert GCRA d'un vrai PostgreSQL (embarqué) migré par Flyway
+class JdbcRateLimiterTests {
+
+	private static JdbcTemplate jdbcTemplate;
+	private static JdbcRateLimiter rateLimiter;
+
+	private final RateLimitPolicy policy = new RateLimitPolicy(5, Duration.ofMinutes(5));
+
+	@BeforeAll
+	static void startPostgres() throws IOException {
+		DataSource dataSource = EmbeddedPostgres.start().getPostgresDatabase(); // arrêté par un hook d'arrêt de la JVM
+		Flyway.configure().dataSource(dataSource).load().migrate();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		rateLimiter = new JdbcRateLimiter(jdbcTemplate);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("DELETE FROM rate_limit_bucket");
+	}
+
+	@Test
+	void rejectsOnceCapacityIsConsumed() {
+		for (int i = 0; i < 5; i++)
+			assertEquals(0, rateLimiter.tryAcquire("login:email:a", policy));
+
+		// Prochain jeton dans un intervalle d'émission (60 s)
+		long retryAfter = rateLimiter.retryAfter("login:email:a", policy);
+		assertTrue(retryAfter > 0 && retryAfter <= 60, String.valueOf(retryAfter));
+		assertEquals(retryAfter, rateLimiter.tryAcquire("login:email:a", policy), 1);
+		assertEquals(0, rateLimiter.retryAfter("login:email:b", policy));
+	}
+
+	@Test
+	void rejectionDoesNotConsumeToken() {
+		for (int i = 0; i < 5; i++)
+			rateLimiter.tryAcquire("login:email:a", policy);
+		Long tat = jdbcTemplate.queryForObject("SELECT tat FROM rate_limit_bucket WHERE bucket_key = 'login:email:a'", Long.class);
+
+		assertTrue(rateLimiter.tryAcquire("login:email:a", policy) > 0);
+
+		assertEquals(tat, jdbcTemplate.queryForObject("SELECT tat FROM rate_limit_bucket WHERE bucket_key = 'login:email:a'", Long.class));
+	}
+
+	@Test
+	void resetRestoresCapacity() {
+		for (int i = 0; i < 5; i++)
+			rateLimiter.tryAcquire("login:email:a", policy);
+
+		rateLimiter.reset("login:email:a");
+
+		assertEquals(0, rateLimiter.tryAcquire("login:email:a", policy));
+	}
+
+	@Test
+	void neverGrantsMoreThanCapacityUnderContention() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch done = new CountDownLatch(200);
+		AtomicInteger granted = new AtomicInteger();
+
+		for (int i = 0; i < 200; i++) {
+			executor.execute(() -> {
+				try {
+					if (rateLimiter.tryAcquire("login:ip:1.2.3.4", policy) == 0)
+						granted.incrementAndGet();
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		done.await();
+		executor.shutdown();
+
+		assertEquals(5, granted.get());
+	}
+}
@@ -0,0 +1,45 @@
+package com.ethereum.sajauth.ratelimit;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestThrottlerTests {
+
+	private final RequestThrottler throttler = new RequestThrottler(new AuthMetrics(new SimpleMeterRegistry()));
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(throttler, "routes", "/**=3/60");
+		ReflectionTestUtils.setField(throttler, "enabled", true);
+		ReflectionTestUtils.setField(throttler, "trustedIps", Set.of("10.0.0.5"));
+		throttler.parseRoutes();
+	}
+
+	@Test
+	void limitsEachAccountAcrossIps() {
+		for (int i = 0; i < 3; i++)
+			assertEquals(0, throttler.checkAccount("/api/v1/validate-token", "a@test.fr"));
+
+		assertTrue(throttler.checkAccount("/api/v1/validate-token", "a@test.fr") > 0);
+		assertEquals(0, throttler.checkAccount("/api/v1/validate-token", "b@test.fr"));
+	}
+
+	@Test
+	void onlyConfiguredIpsAreTrusted() {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, throttler.check("/api/v1/validate-token", "127.0.0.1"));
+			assertEquals(0, throttler.check("/api/v1/validate-token", "10.0.0.5"));
+		}
+
+		// localhost (reverse proxy local) n'est pas exempté par défaut
+		assertTrue(throttler.check("/api/v1/validate-token", "127.0.0.1") > 0);
+		assertEquals(0, throttler.check("/api/v1/validate-token", "10.0.0.5"));
+	}
+}
@@ -0,0 +1,91 @@
+package com.ethereum.sajauth.repositories;
+
+import com.ethereum.sajauth.enums.MailTypeEnum;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// DELETE ... RETURNING : spécifique à PostgreSQL, testé sur un vrai PostgreSQL (embarqué) migré par Flyway
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class VerificationTokenRepositoryTests {
+
+	private static final EmbeddedPostgres postgres = startPostgres();
+
+	private static final byte[] TOKEN_HASH = new byte[32];
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start(); // arrêté par un hook d'arrêt de la JVM
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long userId;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("INSERT INTO roles (name) VALUES ('ROLE_USER')");
+		jdbcTemplate.update("INSERT INTO users (email, password, enabled, role) SELECT 'token@test.fr', 'hash', false, id FROM roles");
+		userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'token@test.fr'", Long.class);
+	}
+
+	private void insertToken(MailTypeEnum type, LocalDateTime expiresAt) {
+		jdbcTemplate.update("INSERT INTO verification_token (user_id, token_hash, mail_type, expires_at) VALUES (?, ?, ?, ?)",
+				userId, TOKEN_HASH, type.name(), expiresAt);
+	}
+
+	@Test
+	void tokenIsConsumedOnlyOnce() {
+		insertToken(MailTypeEnum.MAIL_CONFIRMATION, LocalDateTime.now().plusHours(1));
+
+		assertEquals(Optional.of(userId),
+				verificationTokenRepository.consume(TOKEN_HASH, MailTypeEnum.MAIL_CONFIRMATION.name(), LocalDateTime.now()));
+		assertEquals(Optional.empty(),
+				verificationTokenRepository.consume(TOKEN_HASH, MailTypeEnum.MAIL_CONFIRMATION.name(), LocalDateTime.now()));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM verification_token", Integer.class));
+	}
+
+	@Test
+	void tokenOfAnotherTypeIsKept() {
+		insertToken(MailTypeEnum.MAIL_CONFIRMATION, LocalDateTime.now().plusHours(1));
+
+		assertEquals(Optional.empty(),
+				verificationTokenRepository.consume(TOKEN_HASH, MailTypeEnum.RESET_PWD.name(), LocalDateTime.now()));
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM verification_token", Integer.class));
+	}
+
+	@Test
+	void expiredTokenIsRefused() {
+		insertToken(MailTypeEnum.RESET_PWD, LocalDateTime.now().minusMinutes(1));
+
+		assertEquals(Optional.empty(),
+				verificationTokenRepository.consume(TOKEN_HASH, MailTypeEnum.RESET_PWD.name(), LocalDateTime.now()));
+	}
+}
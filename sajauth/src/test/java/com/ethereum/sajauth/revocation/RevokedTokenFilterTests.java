@@ -0,0 +1,69 @@
+package com.ethereum.sajauth.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevokedTokenFilterTests {
+
+	private static final long HORIZON = 7 * 24 * 3_600_000L;
+
+	private final long expiresAt = System.currentTimeMillis() + 15 * 60_000;
+
+	@Test
+	void revokedTokensAreAlwaysFound() {
+		RevokedTokenFilter filter = new RevokedTokenFilter(HORIZON, 65_536);
+		List<String> revoked = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			String jti = UUID.randomUUID().toString();
+			revoked.add(jti);
+			filter.add(jti, expiresAt);
+		}
+
+		for (String jti : revoked)
+			assertTrue(filter.mightContain(jti, expiresAt));
+	}
+
+	@Test
+	void falsePositivesStayRare() {
+		RevokedTokenFilter filter = new RevokedTokenFilter(HORIZON, 65_536);
+		for (int i = 0; i < 2_000; i++)
+			filter.add(UUID.randomUUID().toString(), expiresAt);
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++)
+			if (filter.mightContain(UUID.randomUUID().toString(), expiresAt))
+				falsePositives++;
+
+		// Taux attendu de l'ordre de 1e-4 avec 5 fonctions de hachage
+		assertTrue(falsePositives < 100, falsePositives + " faux positifs");
+	}
+
+	@Test
+	void tokenIsOnlyLookedUpInItsExpiryMinute() {
+		RevokedTokenFilter filter = new RevokedTokenFilter(HORIZON, 65_536);
+		String jti = UUID.randomUUID().toString();
+		filter.add(jti, expiresAt);
+
+		// Même jti, autre expiration : un autre token
+		assertFalse(filter.mightContain(jti, expiresAt + RevokedTokenFilter.SEGMENT_MILLIS));
+	}
+
+	@Test
+	void expiredMinutesAreReleased() {
+		RevokedTokenFilter filter = new RevokedTokenFilter(HORIZON, 65_536);
+		long now = System.currentTimeMillis();
+		filter.add("past", now - 2 * RevokedTokenFilter.SEGMENT_MILLIS);
+		filter.add("future", now + 10 * RevokedTokenFilter.SEGMENT_MILLIS);
+		assertEquals(2, filter.allocatedSegments());
+
+		filter.expire(now);
+
+		assertEquals(1, filter.allocatedSegments());
+		assertTrue(filter.mightContain("future", now + 10 * RevokedTokenFilter.SEGMENT_MILLIS));
+	}
+}
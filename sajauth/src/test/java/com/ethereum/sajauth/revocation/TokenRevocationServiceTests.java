@@ -0,0 +1,104 @@
+package com.ethereum.sajauth.revocation;
+
+import com.ethereum.sajauth.DTO.RevokedTokenResponse;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Deux instances partageant la même base : une déconnexion sur l'une est vue par l'autre au prochain poll
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false"
+})
+class TokenRevocationServiceTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private TokenRevocationService instance() {
+		TokenRevocationService service = new TokenRevocationService(jdbcTemplate, new JwtUtil(new AuthMetrics(new SimpleMeterRegistry())));
+		ReflectionTestUtils.setField(service, "bloomBits", 65_536);
+		service.init();
+		return service;
+	}
+
+	private static Claims claims(long expiresInMillis) {
+		return Jwts.claims()
+				.id(UUID.randomUUID().toString())
+				.subject("user@test.fr")
+				.expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+				.build();
+	}
+
+	@Test
+	void revocationReachesOtherInstanceOnPoll() {
+		TokenRevocationService first = instance();
+		TokenRevocationService second = instance();
+		Claims revoked = claims(15 * 60_000);
+		Claims active = claims(15 * 60_000);
+
+		first.revoke(revoked);
+
+		assertTrue(first.isRevoked(revoked));
+		assertFalse(second.isRevoked(revoked));
+
+		second.poll();
+
+		assertTrue(second.isRevoked(revoked));
+		assertFalse(second.isRevoked(active));
+		// Une nouvelle instance charge les révocations en cours au démarrage
+		assertTrue(instance().isRevoked(revoked));
+	}
+
+	@Test
+	void revokedFeedListsRevocationsSinceTheGivenDate() {
+		TokenRevocationService service = instance();
+		Claims revoked = claims(15 * 60_000);
+		long before = System.currentTimeMillis() - 1_000;
+
+		service.revoke(revoked);
+
+		List<RevokedTokenResponse> feed = service.revokedSince(before);
+		assertEquals(1, feed.size());
+		assertEquals(revoked.getId(), feed.get(0).getJti());
+		assertEquals(revoked.getExpiration().getTime(), feed.get(0).getExp());
+		// Rien de nouveau après la dernière révocation reçue
+		assertTrue(service.revokedSince(feed.get(0).getRevokedAt() + 1).isEmpty());
+	}
+
+	@Test
+	void revokingTwiceOrAnExpiredTokenIsHarmless() {
+		TokenRevocationService service = instance();
+		Claims claims = claims(60_000);
+
+		service.revoke(claims);
+		service.revoke(claims);
+		service.revoke(claims(-1_000));
+
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM revoked_token", Integer.class));
+	}
+
+	@Test
+	void legacyTokenWithoutJtiIsNeverRevoked() {
+		TokenRevocationService service = instance();
+		Claims legacy = Jwts.claims().subject("user@test.fr").expiration(new Date(System.currentTimeMillis() + 60_000)).build();
+
+		service.revoke(legacy);
+
+		assertFalse(service.isRevoked(legacy));
+	}
+}
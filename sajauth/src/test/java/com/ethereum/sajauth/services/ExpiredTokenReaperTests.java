@@ -0,0 +1,96 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"app.reaper.advisory-lock=false",
+		"app.reaper.batch-size=2"
+})
+@Import({ExpiredTokenReaper.class, AuthMetrics.class, SimpleMeterRegistry.class})
+class ExpiredTokenReaperTests {
+
+	@Autowired
+	private ExpiredTokenReaper reaper;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private long insertUser(String email) {
+		jdbcTemplate.update("INSERT INTO users (email, password, enabled) VALUES (?, 'hash', false)", email);
+		return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+	}
+
+	private void insertVerificationToken(long userId, String mailType, LocalDateTime expiry) {
+		byte[] tokenHash = new byte[32];
+		new Random().nextBytes(tokenHash);
+		jdbcTemplate.update("INSERT INTO verification_token (user_id, token_hash, mail_type, expires_at) VALUES (?, ?, ?, ?)",
+				userId, tokenHash, mailType, Timestamp.valueOf(expiry));
+	}
+
+	private void insertToken(long userId, LocalDateTime expiration) {
+		jdbcTemplate.update("INSERT INTO user_token (user_id, session_id, creation_date, last_used_at, expiration_date) VALUES (?, ?, ?, ?, ?)",
+				userId, UUID.randomUUID().toString(), Timestamp.valueOf(expiration.minusDays(7)), Timestamp.valueOf(expiration.minusDays(7)),
+				Timestamp.valueOf(expiration));
+	}
+
+	private void insertRevokedToken(String jti, LocalDateTime expiration) {
+		jdbcTemplate.update("INSERT INTO revoked_token (jti, expires_at, revoked_at) VALUES (?, ?, ?)",
+				jti, Timestamp.valueOf(expiration), Timestamp.valueOf(expiration.minusMinutes(15)));
+	}
+
+	@Test
+	void reapsExpiredRowsAcrossSeveralBatches() {
+		LocalDateTime now = LocalDateTime.now();
+		long expiredUser = insertUser("expired@test.fr");
+		long pendingUser = insertUser("pending@test.fr");
+
+		// Plusieurs tokens en attente par utilisateur
+		insertVerificationToken(expiredUser, "MAIL_CONFIRMATION", now.minusHours(1));
+		insertVerificationToken(expiredUser, "MAIL_CONFIRMATION", now.minusDays(2));
+		insertVerificationToken(expiredUser, "RESET_PWD", now.minusDays(3));
+		insertVerificationToken(pendingUser, "RESET_PWD", now.plusHours(1));
+
+		// Même date d'expiration pour plusieurs lignes : la pagination repose aussi sur l'id
+		for (int i = 0; i < 5; i++)
+			insertToken(expiredUser, now.minusDays(1));
+		insertToken(pendingUser, now.plusDays(7));
+		insertToken(pendingUser, now.plusDays(6));
+
+		for (int i = 0; i < 3; i++)
+			insertRevokedToken("expired-" + i, now.minusMinutes(1));
+		insertRevokedToken("pending", now.plusMinutes(10));
+
+		ExpiredTokenReaper.ReapReport report = reaper.reap();
+
+		assertEquals(5, report.refreshTokens());
+		assertEquals(3, report.verificationTokens());
+		assertEquals(3, report.revokedTokens());
+		assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM user_token", Integer.class));
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM verification_token", Integer.class));
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM revoked_token", Integer.class));
+	}
+
+	@Test
+	void secondRunFindsNothing() {
+		long user = insertUser("user@test.fr");
+		insertToken(user, LocalDateTime.now().minusMinutes(1));
+
+		assertEquals(1, reaper.reap().refreshTokens());
+		assertEquals(new ExpiredTokenReaper.ReapReport(0, 0, 0), reaper.reap());
+	}
+}
@@ -0,0 +1,152 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.DTO.UserAuthState;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.datasource.ReplicaRouting;
+import com.ethereum.sajauth.entities.Role;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.RoleRepository;
+import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.repositories.UserTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Nombre de requêtes SQL d'une connexion (authentification + ouverture de la session du refresh token), sur base embarquée
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"jwt.secret.key=ZDg4MGExNmQ1ZmE5NmZhZDNmOWMwZGRiNzU1ZDY2YmMxZWZmMDUwODk5MjE3YmQ5"
+})
+@Import({CustomUserDetailsService.class, UserAuthCache.class, UserTokenService.class, JwtUtil.class, SigningKeyService.class, AuthMetrics.class, ReplicaRouting.class,
+		LoginQueryCountTests.LoginConfig.class})
+class LoginQueryCountTests {
+
+	private static final String EMAIL = "login@test.fr";
+	private static final String PASSWORD = "Password1!";
+
+	@TestConfiguration
+	static class LoginConfig {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		AuthenticationManager authenticationManager(CustomUserDetailsService userDetailsService) {
+			DaoAuthenticationProvider provider = new DaoAuthenticationProvider(new BCryptPasswordEncoder(4));
+			provider.setUserDetailsService(userDetailsService);
+			return new ProviderManager(provider);
+		}
+	}
+
+	@Autowired
+	private AuthenticationManager authenticationManager;
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+	@Autowired
+	private UserTokenService userTokenService;
+	@Autowired
+	private UserAuthCache userAuthCache;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private UserTokenRepository userTokenRepository;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		Role role = new Role();
+		role.setName("ROLE_USER");
+		roleRepository.save(role);
+
+		User user = new User();
+		user.setEmail(EMAIL);
+		user.setPassword(new BCryptPasswordEncoder(4).encode(PASSWORD));
+		user.setEnabled(true);
+		user.setRole(role);
+		userRepository.save(user);
+
+		entityManager.flush();
+		entityManager.clear();
+		userAuthCache.invalidate(EMAIL); // le contexte, et donc le cache, est partagé entre les tests
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	// Même enchaînement que AuthController.login
+	private void login() {
+		authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+		UserAuthState userState = userDetailsService.loadUserAuthState(EMAIL);
+		userTokenService.createUserTokens(userState.getUserId(), userState.getEmail(), "JUnit", new MockHttpServletResponse());
+		entityManager.flush();
+	}
+
+	@Test
+	void firstLoginReadsUserOnceAndOpensSessionWithTwoStatements() {
+		login();
+
+		// 1 lecture de l'utilisateur et de son rôle, 1 insertion de la session, 1 éviction des sessions en trop
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertEquals(1, userTokenRepository.count());
+	}
+
+	@Test
+	void secondLoginKeepsFirstSession() {
+		login();
+		statistics.clear();
+
+		login();
+
+		// Identifiants relus en base (jamais servis par le cache) ; la session du premier appareil reste valide
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertEquals(2, userTokenRepository.count());
+	}
+
+	@Test
+	void passwordChangedOnAnotherInstanceIsCheckedAtOnce() {
+		login();
+
+		// Réinitialisation traitée par une autre instance : le cache de celle-ci n'est pas invalidé
+		User user = userRepository.findByEmail(EMAIL).orElseThrow();
+		user.setPassword(new BCryptPasswordEncoder(4).encode("NewPassword1!"));
+		userRepository.save(user);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThrows(BadCredentialsException.class,
+				() -> authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD)));
+	}
+}
@@ -0,0 +1,118 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.entities.MailOutbox;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.enums.MailOutboxStatusEnum;
+import com.ethereum.sajauth.repositories.MailOutboxRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sur un vrai PostgreSQL (embarqué) : lockDueBatch repose sur FOR UPDATE SKIP LOCKED
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(MailOutboxService.class)
+class MailOutboxServiceTests {
+
+	private static final EmbeddedPostgres postgres = startPostgres();
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start(); // arrêté par un hook d'arrêt de la JVM
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@Autowired
+	private MailOutboxService mailOutboxService;
+	@Autowired
+	private MailOutboxRepository mailOutboxRepository;
+
+	private User user() {
+		User user = new User();
+		user.setEmail("outbox@test.fr");
+		user.setUsername("outbox");
+		return user;
+	}
+
+	@Test
+	void enqueueKeepsOnePendingMailPerTypeWithLatestToken() {
+		mailOutboxService.enqueue(user(), "MAIL_CONFIRMATION", "first-token");
+		mailOutboxService.enqueue(user(), "MAIL_CONFIRMATION", "second-token");
+		mailOutboxService.enqueue(user(), "PASSWORD_RESET", "reset-token");
+
+		List<MailOutbox> mails = mailOutboxRepository.findAll();
+		assertEquals(2, mails.size());
+		assertEquals("second-token", mails.stream().filter(mail -> mail.getMailType().equals("MAIL_CONFIRMATION")).findFirst().orElseThrow().getToken());
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED) // une transaction par envoi, comme en production
+	void concurrentEnqueuesCreateOneMail() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch done = new CountDownLatch(50);
+		AtomicInteger failures = new AtomicInteger();
+		try {
+			for (int i = 0; i < 50; i++) {
+				String token = "token-" + i;
+				executor.execute(() -> {
+					try {
+						mailOutboxService.enqueue(user(), "MAIL_CONFIRMATION", token);
+					} catch (RuntimeException e) {
+						failures.incrementAndGet(); // violation de l'index unique : l'email serait perdu
+					} finally {
+						done.countDown();
+					}
+				});
+			}
+			done.await();
+			executor.shutdown();
+
+			assertEquals(0, failures.get());
+			assertEquals(1, mailOutboxRepository.count());
+		} finally {
+			mailOutboxRepository.deleteAll();
+		}
+	}
+
+	@Test
+	void abandonedMailDropsItsToken() {
+		ReflectionTestUtils.setField(mailOutboxService, "maxAttempts", 1);
+		mailOutboxService.enqueue(user(), "MAIL_CONFIRMATION", "raw-token");
+
+		List<MailOutbox> batch = mailOutboxService.claimBatch(10);
+		assertEquals(1, batch.size());
+		mailOutboxService.markFailed(batch.get(0), new IllegalStateException("SMTP indisponible"));
+
+		MailOutbox mail = mailOutboxRepository.findById(batch.get(0).getId()).orElseThrow();
+		assertEquals(MailOutboxStatusEnum.FAILED, mail.getStatus());
+		assertNull(mail.getToken());
+		assertEquals("SMTP indisponible", mail.getLastError());
+	}
+}
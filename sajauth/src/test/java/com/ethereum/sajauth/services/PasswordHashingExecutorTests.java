@@ -0,0 +1,148 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.exceptions.PasswordHashingBusyException;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Un thread de hashage et une place en file : capacité de 2 hashages simultanés
+class PasswordHashingExecutorTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(new AuthMetrics(registry));
+	private final ExecutorService callers = Executors.newFixedThreadPool(2);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(hashingExecutor, "threads", 1);
+		ReflectionTestUtils.setField(hashingExecutor, "queueCapacity", 1);
+		ReflectionTestUtils.setField(hashingExecutor, "timeoutMillis", 2000L);
+		hashingExecutor.startExecutor();
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		callers.shutdownNow();
+		hashingExecutor.stopExecutor();
+	}
+
+	// Hashage bloqué jusqu'à release
+	private String blockedHashing() throws InterruptedException {
+		release.await();
+		return "hash";
+	}
+
+	// Places occupées (thread et file)
+	private int pending() {
+		return ((AtomicInteger) ReflectionTestUtils.getField(hashingExecutor, "pending")).get();
+	}
+
+	// Occupe le thread de hashage et la file
+	private void fillCapacity() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		callers.submit(() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, () -> {
+			started.countDown();
+			return blockedHashing();
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		callers.submit(() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, this::blockedHashing));
+		while (hashingExecutor.getQueueDepth() < 1)
+			Thread.sleep(5);
+	}
+
+	@Test
+	void rejectsImmediatelyWhenQueueIsFull() throws InterruptedException {
+		fillCapacity();
+
+		long startedAt = System.nanoTime();
+		assertThrows(PasswordHashingBusyException.class,
+				() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, () -> "hash"));
+
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 1000, "rejet sans attente");
+		assertEquals(1, registry.counter("sajauth.password.rejected").count());
+	}
+
+	@Test
+	void timesOutWhenHashingTakesTooLong() {
+		ReflectionTestUtils.setField(hashingExecutor, "timeoutMillis", 50L);
+
+		assertThrows(PasswordHashingBusyException.class,
+				() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, this::blockedHashing));
+		assertEquals(1, registry.counter("sajauth.password.rejected").count());
+
+		// Place libérée après le délai : un hashage rapide passe dès que le thread est libre
+		release.countDown();
+		assertEquals("hash", hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, () -> "hash"));
+	}
+
+	@Test
+	void abandonedHashingKeepsItsPlaceUntilItFinishes() throws InterruptedException {
+		ReflectionTestUtils.setField(hashingExecutor, "timeoutMillis", 50L);
+		assertThrows(PasswordHashingBusyException.class,
+				() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, this::blockedHashing));
+
+		// Le hashage abandonné occupe toujours le thread : il ne reste que la place en file
+		assertEquals(1, pending());
+		ReflectionTestUtils.setField(hashingExecutor, "timeoutMillis", 2000L);
+		callers.submit(() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, this::blockedHashing));
+		while (hashingExecutor.getQueueDepth() < 1)
+			Thread.sleep(5);
+		assertThrows(PasswordHashingBusyException.class,
+				() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, () -> "hash"));
+
+		release.countDown();
+		for (int i = 0; i < 500 && pending() > 0; i++)
+			Thread.sleep(10);
+		assertEquals(0, pending());
+	}
+
+	@Test
+	void abandonedQueuedHashingLeavesTheQueue() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		callers.submit(() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, () -> {
+			started.countDown();
+			return blockedHashing();
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		ReflectionTestUtils.setField(hashingExecutor, "timeoutMillis", 50L);
+		assertThrows(PasswordHashingBusyException.class,
+				() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, this::blockedHashing));
+
+		// Jamais commencé : retiré de la file, seule la tâche en cours compte encore
+		assertEquals(0, hashingExecutor.getQueueDepth());
+		assertEquals(1, pending());
+	}
+
+	@Test
+	void rejectionsLeakNeitherThreadsNorCapacity() throws InterruptedException {
+		fillCapacity();
+
+		for (int i = 0; i < 100; i++)
+			assertThrows(PasswordHashingBusyException.class,
+					() -> hashingExecutor.execute(PasswordHashingExecutor.Priority.LOW, () -> "hash"));
+
+		release.countDown();
+		callers.shutdown();
+		assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hashingExecutor, "executor");
+		assertNotNull(executor);
+		assertEquals(1, executor.getLargestPoolSize());
+		assertEquals(0, hashingExecutor.getQueueDepth());
+
+		// Chaque rejet a rendu sa place : capacité entière disponible
+		assertEquals(0, pending());
+		assertEquals("hash", hashingExecutor.execute(PasswordHashingExecutor.Priority.HIGH, () -> "hash"));
+	}
+}
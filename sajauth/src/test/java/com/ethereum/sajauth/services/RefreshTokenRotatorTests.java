@@ -0,0 +1,153 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.DTO.TokenResponse;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.entities.Role;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.RoleRepository;
+import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.repositories.UserTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rafales de refresh du même token, sur une ou deux instances : une seule rotation, aucun refus ni révocation.
+// Hors transaction de test : chaque thread voit les écritures des autres
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"jwt.secret.key=ZDg4MGExNmQ1ZmE5NmZhZDNmOWMwZGRiNzU1ZDY2YmMxZWZmMDUwODk5MjE3YmQ5"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RefreshTokenRotator.class, UserTokenService.class, UserAuthCache.class, JwtUtil.class, SigningKeyService.class, AuthMetrics.class,
+		RefreshTokenRotatorTests.MetricsConfig.class})
+class RefreshTokenRotatorTests {
+
+	private static final int PARALLEL_REFRESHES = 32;
+
+	@TestConfiguration
+	static class MetricsConfig {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private RefreshTokenRotator refreshTokenRotator;
+	@Autowired
+	private UserTokenService userTokenService;
+	@Autowired
+	private UserTokenRepository userTokenRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private JwtUtil jwtUtil;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private User user;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		Role role = new Role();
+		role.setName("ROLE_USER");
+		roleRepository.save(role);
+
+		user = new User();
+		user.setEmail("burst@test.fr");
+		user.setPassword("hash");
+		user.setEnabled(true);
+		user.setRole(role);
+		userRepository.save(user);
+
+		executor = Executors.newFixedThreadPool(PARALLEL_REFRESHES);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+		userTokenRepository.deleteAll();
+		userRepository.deleteAll();
+		roleRepository.deleteAll();
+	}
+
+	private String login() {
+		return userTokenService.createUserTokens(user.getId(), user.getEmail(), "browser", new MockHttpServletResponse()).getRefreshToken();
+	}
+
+	// Tous les appels partent ensemble ; chacun passe par l'une des instances, à tour de rôle
+	private List<Optional<TokenResponse>> burst(String refreshToken, RefreshTokenRotator... instances) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Optional<TokenResponse>>> futures = new ArrayList<>();
+		for (int i = 0; i < PARALLEL_REFRESHES; i++) {
+			RefreshTokenRotator instance = instances[i % instances.length];
+			futures.add(executor.submit(() -> {
+				start.await();
+				return instance.refresh(refreshToken, jwtUtil.extractClaims(refreshToken));
+			}));
+		}
+		start.countDown();
+
+		List<Optional<TokenResponse>> results = new ArrayList<>();
+		for (Future<Optional<TokenResponse>> future : futures)
+			results.add(future.get(30, TimeUnit.SECONDS));
+		return results;
+	}
+
+	@Test
+	void parallelRefreshesShareOneRotation() throws Exception {
+		String refreshToken = login();
+
+		List<Optional<TokenResponse>> results = burst(refreshToken, refreshTokenRotator);
+
+		assertTrue(results.stream().allMatch(Optional::isPresent));
+		assertEquals(1, results.stream().map(result -> result.get().getRefreshToken()).distinct().count());
+		assertEquals(1, userTokenRepository.findAll().get(0).getVersion());
+
+		String rotated = results.get(0).get().getRefreshToken();
+		assertTrue(refreshTokenRotator.refresh(rotated, jwtUtil.extractClaims(rotated)).isPresent());
+	}
+
+	@Test
+	void parallelRefreshesOnTwoInstancesKeepSessionAlive() throws Exception {
+		String refreshToken = login();
+		RefreshTokenRotator otherInstance = new RefreshTokenRotator(userTokenService, jwtUtil);
+		ReflectionTestUtils.setField(otherInstance, "refreshGraceMillis", 10_000L);
+
+		List<Optional<TokenResponse>> results = burst(refreshToken, refreshTokenRotator, otherInstance);
+
+		// Une seule rotation en base ; les appels qui l'ont perdue reçoivent un token d'accès sans refresh token
+		assertTrue(results.stream().allMatch(Optional::isPresent));
+		List<String> minted = results.stream().map(result -> result.get().getRefreshToken()).filter(Objects::nonNull).distinct().toList();
+		assertEquals(1, minted.size());
+		assertEquals(0, meterRegistry.counter("sajauth.refresh.reused").count());
+		assertEquals(1, userTokenRepository.count());
+
+		assertTrue(refreshTokenRotator.refresh(minted.get(0), jwtUtil.extractClaims(minted.get(0))).isPresent());
+	}
+}
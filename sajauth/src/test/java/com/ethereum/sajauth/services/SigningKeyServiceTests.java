@@ -0,0 +1,163 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.entities.SigningKey;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.SigningKeyRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Signature ES256 vérifiable avec le seul JWKS publié, et rotation partagée par la table signing_key
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"jwt.secret.key=ZDg4MGExNmQ1ZmE5NmZhZDNmOWMwZGRiNzU1ZDY2YmMxZWZmMDUwODk5MjE3YmQ5",
+		"jwt.legacy-hs256.accepted-until=2100-01-01T00:00:00Z"
+})
+@Import({JwtUtil.class, SigningKeyService.class, AuthMetrics.class, SigningKeyServiceTests.MetricsConfig.class})
+class SigningKeyServiceTests {
+
+	private static final String SECRET_KEY = "ZDg4MGExNmQ1ZmE5NmZhZDNmOWMwZGRiNzU1ZDY2YmMxZWZmMDUwODk5MjE3YmQ5";
+
+	@TestConfiguration
+	static class MetricsConfig {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private JwtUtil jwtUtil;
+	@Autowired
+	private SigningKeyService signingKeyService;
+	@Autowired
+	private SigningKeyRepository signingKeyRepository;
+
+	// Vérification comme le ferait un consommateur : uniquement à partir du JWKS
+	private Jws<Claims> verifyWithJwks(String token) {
+		JwkSet jwks = Jwks.setParser().build().parse(jwtUtil.jwks().json());
+		return Jwts.parser()
+				.keyLocator(header -> (Key) jwks.getKeys().stream()
+						.filter(jwk -> jwk.getId().equals(((JwsHeader) header).getKeyId()))
+						.map(jwk -> ((PublicJwk<?>) jwk).toKey())
+						.findFirst().orElseThrow())
+				.build()
+				.parseSignedClaims(token);
+	}
+
+	@Test
+	void tokensAreVerifiableWithPublishedKeys() {
+		String token = jwtUtil.generateToken(1L, "jwks@test.fr", JwtTokenEnum.ACCESS.getId());
+
+		Jws<Claims> jws = verifyWithJwks(token);
+		assertEquals("ES256", jws.getHeader().getAlgorithm());
+		assertEquals("jwks@test.fr", jws.getPayload().getSubject());
+		assertFalse(jwtUtil.jwks().json().contains("\"d\""), "clé privée publiée");
+	}
+
+	@Test
+	void instancesShareOneKeyPerPeriod() {
+		long keys = signingKeyRepository.count();
+
+		signingKeyService.refresh(); // seconde instance, ou tâche planifiée
+
+		assertEquals(keys, signingKeyRepository.count());
+	}
+
+	private SigningKey generate(Instant activatesAt, Instant retiresAt) {
+		SigningKey key = ReflectionTestUtils.invokeMethod(signingKeyService, "generate", activatesAt);
+		key.setRetiresAt(retiresAt);
+		return signingKeyRepository.saveAndFlush(key);
+	}
+
+	@Test
+	void keySetOverlapsPreviousAndNextPeriods() {
+		Instant now = Instant.now();
+		String current = signingKeyRepository.findAll().get(0).getKid();
+		// Clés créées par d'autres instances : suivante, précédente retirée hier, et retirée depuis plus de 7 jours
+		String next = generate(now.plus(Duration.ofHours(1)), now.plus(Duration.ofDays(30))).getKid();
+		SigningKey previous = generate(now.minus(Duration.ofDays(31)), now.minus(Duration.ofDays(1)));
+		String expired = generate(now.minus(Duration.ofDays(60)), now.minus(Duration.ofDays(30))).getKid();
+
+		signingKeyService.refresh();
+
+		assertEquals(Set.of(current, next, previous.getKid()), publishedKids());
+		assertFalse(signingKeyRepository.existsById(expired));
+		// La clé suivante est connue des consommateurs mais ne signe pas encore
+		String token = jwtUtil.generateToken(1L, "jwks@test.fr", JwtTokenEnum.ACCESS.getId());
+		assertEquals(current, verifyWithJwks(token).getHeader().getKeyId());
+
+		// Token signé par la clé précédente : signature acceptée, seule l'expiration est rejetée
+		Date issuedAt = Date.from(previous.getActivatesAt().plusSeconds(1));
+		String oldToken = jwtUtil.generateToken(1L, "jwks@test.fr", JwtTokenEnum.ACCESS.getId(), issuedAt);
+		assertThrows(ExpiredJwtException.class, () -> jwtUtil.extractClaims(oldToken));
+	}
+
+	private Set<String> publishedKids() {
+		return Jwks.setParser().build().parse(jwtUtil.jwks().json()).getKeys().stream()
+				.map(Jwk::getId)
+				.collect(Collectors.toSet());
+	}
+
+	@Test
+	void legacyHs256TokensAreAcceptedUntilTheConfiguredDate() {
+		String legacy = Jwts.builder()
+				.subject("legacy@test.fr")
+				.issuedAt(new Date())
+				.expiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(new SecretKeySpec(Base64.getDecoder().decode(SECRET_KEY), "HmacSHA256"), Jwts.SIG.HS256)
+				.compact();
+
+		assertEquals("legacy@test.fr", jwtUtil.extractClaims(legacy).getSubject());
+
+		ReflectionTestUtils.setField(jwtUtil, "legacyHs256Deadline", Instant.now().minusSeconds(1));
+		try {
+			assertThrows(JwtException.class, () -> jwtUtil.extractClaims(legacy));
+		} finally {
+			ReflectionTestUtils.setField(jwtUtil, "legacyHs256Deadline", Instant.parse("2100-01-01T00:00:00Z"));
+		}
+	}
+
+	@Test
+	void onlyAccessTokensAuthenticate() {
+		assertTrue(jwtUtil.isAccessToken(jwtUtil.extractClaims(jwtUtil.generateToken(1L, "jwks@test.fr", JwtTokenEnum.ACCESS.getId()))));
+		assertFalse(jwtUtil.isAccessToken(jwtUtil.extractClaims(jwtUtil.generateToken(1L, "jwks@test.fr", JwtTokenEnum.REFRESH.getId()))));
+
+		// Refresh token émis avant le claim typ : reconnu à sa durée de vie
+		Date issuedAt = new Date();
+		Claims untyped = Jwts.claims().subject("jwks@test.fr").issuedAt(issuedAt)
+				.expiration(jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), issuedAt)).build();
+		assertFalse(jwtUtil.isAccessToken(untyped));
+	}
+}
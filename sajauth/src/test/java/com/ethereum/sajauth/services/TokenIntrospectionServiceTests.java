@@ -0,0 +1,148 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.CustomUserDetailsService;
+import com.ethereum.sajauth.DTO.TokenIntrospectionResponse;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.datasource.ReplicaRouting;
+import com.ethereum.sajauth.entities.Role;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.enums.TokenStatusEnum;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.RoleRepository;
+import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.revocation.TokenRevocationService;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Introspection d'un lot : statut par token et une seule requête pour tous les comptes
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"app.introspection.threads=4",
+		"jwt.legacy-hs256.accepted-until=2100-01-01T00:00:00Z",
+		"jwt.secret.key=" + TokenIntrospectionServiceTests.SECRET_KEY
+})
+@Import({TokenIntrospectionService.class, CustomUserDetailsService.class, UserAuthCache.class, JwtUtil.class, SigningKeyService.class,
+		TokenRevocationService.class, AuthMetrics.class, ReplicaRouting.class, TokenIntrospectionServiceTests.MetricsConfig.class})
+class TokenIntrospectionServiceTests {
+
+	static final String SECRET_KEY = "ZDg4MGExNmQ1ZmE5NmZhZDNmOWMwZGRiNzU1ZDY2YmMxZWZmMDUwODk5MjE3YmQ5";
+	private static final int USERS = 50;
+
+	@TestConfiguration
+	static class MetricsConfig {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private TokenIntrospectionService tokenIntrospectionService;
+	@Autowired
+	private JwtUtil jwtUtil;
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final List<Long> userIds = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		Role role = new Role();
+		role.setName("ROLE_USER");
+		roleRepository.save(role);
+
+		for (int i = 0; i < USERS; i++) {
+			User user = new User();
+			user.setEmail("user" + i + "@test.fr");
+			user.setPassword("hash");
+			user.setEnabled(i != 0); // user0 : compte non activé
+			user.setRole(role);
+			userIds.add(userRepository.save(user).getId());
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private String token(int user) {
+		return jwtUtil.generateToken(userIds.get(user), "user" + user + "@test.fr", JwtTokenEnum.ACCESS.getId());
+	}
+
+	@Test
+	void returnsStatusPerTokenInRequestOrder() {
+		// Ancien token HS256 expiré
+		String expired = Jwts.builder()
+				.subject("user1@test.fr")
+				.expiration(new Date(System.currentTimeMillis() - 1000))
+				.signWith(new SecretKeySpec(Base64.getDecoder().decode(SECRET_KEY), "HmacSHA256"), Jwts.SIG.HS256)
+				.compact();
+		String unknownUser = jwtUtil.generateToken(999L, "deleted@test.fr", JwtTokenEnum.ACCESS.getId());
+		String loggedOut = token(2);
+		tokenRevocationService.revoke(jwtUtil.extractClaims(loggedOut));
+
+		List<TokenIntrospectionResponse> responses = tokenIntrospectionService.introspect(
+				List.of(token(1), expired, "not-a-token", token(0), unknownUser, loggedOut));
+
+		assertEquals(List.of(TokenStatusEnum.ACTIVE, TokenStatusEnum.EXPIRED, TokenStatusEnum.INVALID, TokenStatusEnum.DISABLED,
+				TokenStatusEnum.REVOKED, TokenStatusEnum.REVOKED), responses.stream().map(TokenIntrospectionResponse::getStatus).toList());
+		assertEquals(userIds.get(1), responses.get(0).getUserId());
+		assertEquals("ROLE_USER", responses.get(0).getRole());
+	}
+
+	@Test
+	void refreshTokenIsInvalid() {
+		String refreshToken = jwtUtil.generateToken(userIds.get(1), "user1@test.fr", JwtTokenEnum.REFRESH.getId());
+
+		List<TokenIntrospectionResponse> responses = tokenIntrospectionService.introspect(List.of(refreshToken));
+
+		assertEquals(TokenStatusEnum.INVALID, responses.get(0).getStatus());
+		assertNull(responses.get(0).getUserId());
+	}
+
+	@Test
+	void resolvesAllSubjectsWithOneQuery() {
+		List<String> tokens = new ArrayList<>();
+		for (int i = 1; i < USERS; i++)
+			tokens.add(token(i));
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		List<TokenIntrospectionResponse> responses = tokenIntrospectionService.introspect(tokens);
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(USERS - 1, responses.stream().filter(response -> response.getStatus() == TokenStatusEnum.ACTIVE).count());
+	}
+}
@@ -0,0 +1,87 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.DTO.UserAuthState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserAuthCacheTests {
+
+	private UserAuthCache cache;
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		cache = new UserAuthCache();
+		ReflectionTestUtils.setField(cache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 5L);
+		ReflectionTestUtils.setField(cache, "maxSize", 3);
+	}
+
+	private Optional<UserAuthState> load(String email) {
+		loads.incrementAndGet();
+		return email.startsWith("unknown")
+				? Optional.empty()
+				: Optional.of(new UserAuthState(1L, email, "hash", "ROLE_USER", true));
+	}
+
+	@Test
+	void servesRepeatedLookupsFromCache() {
+		cache.get("a@test.fr", this::load);
+		cache.get("a@test.fr", this::load);
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void cachesUnknownEmails() {
+		assertTrue(cache.get("unknown@test.fr", this::load).isEmpty());
+		assertTrue(cache.get("unknown@test.fr", this::load).isEmpty());
+
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void invalidateForcesReload() {
+		cache.get("a@test.fr", this::load);
+		cache.invalidate("a@test.fr");
+		cache.get("a@test.fr", this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void lookupBeforeCommitIsDroppedAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			// Inscription en cours : une requête concurrente ne voit pas encore le compte et le met en cache comme inconnu
+			cache.invalidate("unknown-new@test.fr");
+			cache.get("unknown-new@test.fr", this::load);
+
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		cache.get("unknown-new@test.fr", this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void staysWithinMaxSize() {
+		for (int i = 0; i < 10; i++)
+			cache.get(i + "@test.fr", this::load);
+
+		assertEquals(3, cache.size());
+		assertEquals(7, cache.getEvictionCount());
+	}
+}
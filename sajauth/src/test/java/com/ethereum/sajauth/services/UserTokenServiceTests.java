@@ -0,0 +1,229 @@
+package com.ethereum.sajauth.services;
+
+import com.ethereum.sajauth.DTO.TokenResponse;
+import com.ethereum.sajauth.JwtUtil;
+import com.ethereum.sajauth.entities.Role;
+import com.ethereum.sajauth.entities.User;
+import com.ethereum.sajauth.entities.UserToken;
+import com.ethereum.sajauth.enums.JwtTokenEnum;
+import com.ethereum.sajauth.metrics.AuthMetrics;
+import com.ethereum.sajauth.repositories.RoleRepository;
+import com.ethereum.sajauth.repositories.UserRepository;
+import com.ethereum.sajauth.repositories.UserTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sessions par appareil : rotation limitée à une ligne, éviction des plus anciennes, détection de réutilisation
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"app.sessions.max-per-user=3",
+		"app.sessions.refresh-grace-ms=0", // rotations successives : réutilisation détectée dès la rotation suivante
+		"jwt.secret.key=" + UserTokenServiceTests.SECRET_KEY
+})
+@Import({UserTokenService.class, UserAuthCache.class, JwtUtil.class, SigningKeyService.class, AuthMetrics.class,
+		UserTokenServiceTests.MetricsConfig.class})
+class UserTokenServiceTests {
+
+	static final String SECRET_KEY = "ZDg4MGExNmQ1ZmE5NmZhZDNmOWMwZGRiNzU1ZDY2YmMxZWZmMDUwODk5MjE3YmQ5";
+	private static final String ROTATED_KEY = "MTIzNDU2Nzg5MGFiY2RlZjEyMzQ1Njc4OTBhYmNkZWYxMjM0NTY3ODkwYWJjZGVm";
+
+	@TestConfiguration
+	static class MetricsConfig {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private UserTokenService userTokenService;
+	@Autowired
+	private UserTokenRepository userTokenRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private RoleRepository roleRepository;
+	@Autowired
+	private JwtUtil jwtUtil;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		Role role = new Role();
+		role.setName("ROLE_USER");
+		roleRepository.save(role);
+
+		user = new User();
+		user.setEmail("devices@test.fr");
+		user.setPassword("hash");
+		user.setEnabled(true);
+		user.setRole(role);
+		userRepository.save(user);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private TokenResponse login(String device) {
+		TokenResponse tokens = userTokenService.createUserTokens(user.getId(), user.getEmail(), device, new MockHttpServletResponse());
+		entityManager.flush();
+		entityManager.clear();
+		return tokens;
+	}
+
+	// Une requête par appel, comme en production
+	private Optional<TokenResponse> refresh(String refreshToken) {
+		Optional<TokenResponse> tokens = userTokenService.refreshUserTokens(refreshToken, jwtUtil.extractClaims(refreshToken));
+		entityManager.flush();
+		entityManager.clear();
+		return tokens;
+	}
+
+	private String sessionId(String token) {
+		return jwtUtil.extractClaims(token).get(JwtUtil.SESSION_ID_CLAIM, String.class);
+	}
+
+	@Test
+	void refreshRotatesOnlyItsOwnSession() {
+		TokenResponse phone = login("phone");
+		TokenResponse desktop = login("desktop");
+		byte[] desktopHash = jwtUtil.hashRefreshToken(desktop.getRefreshToken());
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		TokenResponse rotated = refresh(phone.getRefreshToken()).orElseThrow();
+
+		// Lecture de la session par empreinte puis mise à jour versionnée de sa seule ligne
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(sessionId(phone.getAccessToken()), sessionId(rotated.getAccessToken()));
+		assertEquals(user.getId(), rotated.getUserId());
+		assertTrue(userTokenRepository.findByTokenHash(desktopHash).isPresent());
+		assertTrue(refresh(desktop.getRefreshToken()).isPresent());
+	}
+
+	@Test
+	void leastRecentlyUsedSessionIsEvictedAboveCap() throws InterruptedException {
+		TokenResponse first = login("first");
+		TokenResponse second = login("second");
+		login("third");
+		Thread.sleep(5);
+		// La première session reste la plus récemment utilisée
+		TokenResponse firstRotated = refresh(first.getRefreshToken()).orElseThrow();
+
+		login("fourth");
+
+		assertEquals(3, userTokenRepository.count());
+		assertTrue(refresh(second.getRefreshToken()).isEmpty());
+		assertTrue(refresh(firstRotated.getRefreshToken()).isPresent());
+	}
+
+	@Test
+	void reusedRefreshTokenRevokesItsSession() {
+		TokenResponse phone = login("phone");
+		TokenResponse desktop = login("desktop");
+		TokenResponse rotated = refresh(phone.getRefreshToken()).orElseThrow();
+
+		// Ancien token rejoué (vol ou client défaillant) : la session entière est révoquée
+		assertTrue(refresh(phone.getRefreshToken()).isEmpty());
+		assertTrue(refresh(rotated.getRefreshToken()).isEmpty());
+
+		assertEquals(1, meterRegistry.counter("sajauth.refresh.reused").count());
+		assertEquals(1, userTokenRepository.count());
+		assertTrue(refresh(desktop.getRefreshToken()).isPresent());
+	}
+
+	@Test
+	void disabledAccountGetsNoNewTokens() {
+		TokenResponse phone = login("phone");
+		user.setEnabled(false);
+		userRepository.save(user);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertTrue(refresh(phone.getRefreshToken()).isEmpty());
+		// Session fermée sans être comptée comme une réutilisation
+		assertEquals(0, userTokenRepository.count());
+		assertEquals(0, meterRegistry.counter("sajauth.refresh.reused").count());
+	}
+
+	@Test
+	void legacySessionIsMigratedOnFirstRefresh() {
+		// Session antérieure à l'empreinte HMAC : ancien hash dans refresh_token, token sans claim sid
+		String refreshToken = jwtUtil.generateToken(user.getId(), user.getEmail(), JwtTokenEnum.REFRESH.getId(), new Date(), null);
+		UserToken legacy = new UserToken();
+		legacy.setUser(userRepository.getReferenceById(user.getId()));
+		legacy.setSessionId("legacy-1");
+		legacy.setRefreshToken(jwtUtil.legacyHashRefreshToken(refreshToken));
+		legacy.setLastUsedAt(new Date());
+		legacy.setExpirationDate(jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), new Date()));
+		userTokenRepository.save(legacy);
+		entityManager.flush();
+		entityManager.clear();
+
+		TokenResponse rotated = refresh(refreshToken).orElseThrow();
+
+		UserToken migrated = userTokenRepository.findAll().get(0);
+		assertNull(migrated.getRefreshToken());
+		assertArrayEquals(jwtUtil.hashRefreshToken(rotated.getRefreshToken()), migrated.getTokenHash());
+	}
+
+	@Test
+	void legacySessionSurvivesSigningKeyRotation() {
+		String refreshToken = jwtUtil.generateToken(user.getId(), user.getEmail(), JwtTokenEnum.REFRESH.getId(), new Date(), null);
+		UserToken legacy = new UserToken();
+		legacy.setUser(userRepository.getReferenceById(user.getId()));
+		legacy.setSessionId("legacy-1");
+		legacy.setRefreshToken(jwtUtil.legacyHashRefreshToken(refreshToken));
+		legacy.setLastUsedAt(new Date());
+		legacy.setExpirationDate(jwtUtil.expirationDate(JwtTokenEnum.REFRESH.getId(), new Date()));
+		userTokenRepository.save(legacy);
+		entityManager.flush();
+		entityManager.clear();
+
+		jwtUtil.rotateSigningKey(ROTATED_KEY);
+		try {
+			assertTrue(refresh(refreshToken).isPresent());
+		} finally {
+			jwtUtil.rotateSigningKey(SECRET_KEY);
+		}
+	}
+
+	@Test
+	void logoutClosesOnlyCurrentDevice() {
+		TokenResponse phone = login("phone");
+		TokenResponse desktop = login("desktop");
+
+		userTokenService.removeUserSession(user, sessionId(phone.getAccessToken()));
+
+		assertTrue(refresh(phone.getRefreshToken()).isEmpty());
+		assertTrue(refresh(desktop.getRefreshToken()).isPresent());
+		assertEquals(Arrays.asList("desktop"), userTokenRepository.findAll().stream().map(UserToken::getDevice).toList());
+	}
+}
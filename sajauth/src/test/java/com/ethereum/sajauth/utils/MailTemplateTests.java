@@ -0,0 +1,39 @@
+package com.ethereum.sajauth.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailTemplateTests {
+
+	@Test
+	void rendersVariablesInAnyOrder() {
+		MailTemplate template = MailTemplate.compile("{{url}} - Bonjour {{ username }} ({{url}})", false, "username", "url");
+
+		assertEquals("http://a - Bonjour Bob (http://a)", template.render("Bob", "http://a"));
+	}
+
+	@Test
+	void escapesHtmlValues() {
+		MailTemplate template = MailTemplate.compile("<p>{{username}}</p>", true, "username");
+
+		assertEquals("<p>&lt;b&gt;Tom &amp; &quot;Jerry&quot;</p>", template.render("<b>Tom & \"Jerry\""));
+	}
+
+	@Test
+	void reusesCallerBuffer() {
+		MailTemplate template = MailTemplate.compile("Bonjour {{username}}", false, "username");
+		StringBuilder buffer = new StringBuilder();
+
+		template.render(buffer, "A");
+		buffer.setLength(0);
+		template.render(buffer, "B");
+
+		assertEquals("Bonjour B", buffer.toString());
+	}
+
+	@Test
+	void rejectsUnknownVariables() {
+		assertThrows(IllegalArgumentException.class, () -> MailTemplate.compile("{{token}}", false, "username"));
+	}
+}
@@ -0,0 +1,77 @@
+import { Test } from '@nestjs/testing';
+import { INestApplication } from '@nestjs/common';
+import { HttpService } from '@nestjs/axios';
+import * as request from 'supertest';
+import { of } from 'rxjs';
+import { generateKeyPairSync, randomUUID, sign } from 'crypto';
+import { AuthGuard } from './auth.guard';
+import { WalletController } from '../wallet/wallet.controller';
+import { WalletService } from '../wallet/wallet.service';
+
+// Clé ES256 publiée par un faux service Java : tokens vérifiés sur place par le guard
+describe('AuthGuard', () => {
+  const { privateKey, publicKey } = generateKeyPairSync('ec', { namedCurve: 'P-256' });
+  const jwk = { ...publicKey.export({ format: 'jwk' }), kid: 'test-key', alg: 'ES256', use: 'sig' };
+
+  let revoked: { jti: string; exp: number; revokedAt: number }[];
+  const httpService = {
+    get: jest.fn((url: string) => {
+      if (url.endsWith('/auth/jwks')) return of({ data: { keys: [jwk] }, headers: { 'cache-control': 'public, max-age=3600' } });
+      if (url.endsWith('/auth/revoked')) return of({ data: revoked, headers: {} });
+      throw new Error(`Unexpected call to ${url}`);
+    }),
+  };
+  let app: INestApplication;
+
+  const signToken = (claims: object) => {
+    const header = Buffer.from(JSON.stringify({ kid: 'test-key', alg: 'ES256' })).toString('base64url');
+    const payload = Buffer.from(JSON.stringify(claims)).toString('base64url');
+    const signature = sign('sha256', Buffer.from(`${header}.${payload}`), { key: privateKey, dsaEncoding: 'ieee-p1363' });
+    return `${header}.${payload}.${signature.toString('base64url')}`;
+  };
+
+  beforeEach(async () => {
+    revoked = [];
+    httpService.get.mockClear();
+    const moduleRef = await Test.createTestingModule({
+      controllers: [WalletController],
+      providers: [
+        AuthGuard,
+        { provide: HttpService, useValue: httpService },
+        { provide: WalletService, useValue: { getWallet: jest.fn().mockResolvedValue({ wallet: '0xabc' }) } },
+      ],
+    }).compile();
+
+    app = moduleRef.createNestApplication();
+    await app.init();
+    await app.get(AuthGuard).pollRevocations();
+  });
+
+  afterEach(async () => {
+    await app.close();
+  });
+
+  it('rejects an access token on wallet routes once logout has revoked it', async () => {
+    const jti = randomUUID();
+    const exp = Math.floor(Date.now() / 1000) + 900;
+    const token = signToken({ jti, sub: 'user@test.fr', userId: 1, typ: 'access', exp });
+
+    await request(app.getHttpServer()).get('/wallet/get_wallet').set('Authorization', `Bearer ${token}`).expect(200, { wallet: '0xabc' });
+
+    // Déconnexion sur le service Java : le jti apparaît dans le flux des révocations au poll suivant
+    revoked = [{ jti, exp: exp * 1000, revokedAt: Date.now() }];
+    await app.get(AuthGuard).pollRevocations();
+
+    await request(app.getHttpServer()).get('/wallet/get_wallet').set('Authorization', `Bearer ${token}`).expect(401);
+    // Refus local, sans appel à /validate-token
+    expect(httpService.get).not.toHaveBeenCalledWith(expect.stringContaining('/validate-token'), expect.anything());
+  });
+
+  it('rejects a refresh token used as bearer', async () => {
+    const exp = Math.floor(Date.now() / 1000) + 7 * 24 * 3600;
+    const token = signToken({ jti: randomUUID(), sub: 'user@test.fr', userId: 1, typ: 'refresh', exp });
+
+    await request(app.getHttpServer()).get('/wallet/get_wallet').set('Authorization', `Bearer ${token}`).expect(401);
+    expect(httpService.get).not.toHaveBeenCalledWith(expect.stringContaining('/validate-token'), expect.anything());
+  });
+});
@@ -1,14 +1,54 @@
-import { Injectable, CanActivate, ExecutionContext, UnauthorizedException, Logger } from '@nestjs/common';
+import { Injectable, CanActivate, ExecutionContext, UnauthorizedException, Logger, OnModuleInit, OnModuleDestroy } from '@nestjs/common';
 import { HttpService } from '@nestjs/axios';
 import { firstValueFrom } from 'rxjs';
-import { jwtDecode } from 'jwt-decode';
+import { createPublicKey, verify, KeyObject } from 'crypto';
+
+const AUTH_URL = 'http://localhost:8080/api/v1';
+// kid inconnu ou service d'auth injoignable : pas plus d'un rechargement du JWKS toutes les 30 s
+const JWKS_RETRY_MS = 30_000;
+// Révocations (déconnexions) relues chaque seconde, avec la même marge de relecture que TokenRevocationService
+const REVOCATION_POLL_MS = 1_000;
+const REVOCATION_OVERLAP_MS = 10_000;
+// Flux non relu depuis plus longtemps : la validation repasse par le service Java, qui connaît les révocations
+const REVOCATION_STALE_MS = 30_000;
+// Durée de vie d'un token d'accès (JwtUtil), pour les tokens émis avant le claim typ
+const ACCESS_TOKEN_LIFETIME_S = 15 * 60;
+
+// Seul un token d'accès ouvre les routes : un refresh token (7 jours) ne sert qu'à /auth/refresh-token
+function isAccessToken(claims: any): boolean {
+  if (claims.typ !== undefined) return claims.typ === 'access';
+  return typeof claims.iat === 'number' && claims.exp - claims.iat <= ACCESS_TOKEN_LIFETIME_S + 1;
+}
 
 @Injectable()
-export class AuthGuard implements CanActivate {
+export class AuthGuard implements CanActivate, OnModuleInit, OnModuleDestroy {
   private readonly logger = new Logger(AuthGuard.name);
-  
+
+  // Clés publiques du JWKS, gardées le max-age annoncé par le service Java
+  private keys = new Map<string, KeyObject>();
+  private keysExpireAt = 0;
+  private lastFetch = 0;
+  private loading: Promise<void> | null = null;
+
+  // jti révoqué -> expiration du token (ms)
+  private revoked = new Map<string, number>();
+  private lastRevokedAt = 0;
+  private revocationsSyncedAt = 0;
+  private revocationPoll: Promise<void> | null = null;
+  private revocationTimer?: NodeJS.Timeout;
+
   constructor(private httpService: HttpService) {}
 
+  // Premier chargement sans bloquer le démarrage : d'ici là les tokens sont validés par le service Java
+  onModuleInit() {
+    this.pollRevocations();
+    this.revocationTimer = setInterval(() => this.pollRevocations(), REVOCATION_POLL_MS);
+  }
+
+  onModuleDestroy() {
+    clearInterval(this.revocationTimer);
+  }
+
   async canActivate(context: ExecutionContext): Promise<boolean> {
     const request = context.switchToHttp().getRequest();
     const token = this.extractTokenFromHeader(request);
@@ -19,24 +59,9 @@ export class AuthGuard implements CanActivate {
     }
 
     try {
-      this.logger.debug(`Validating token with Java service for ${request.method} ${request.url}`);
-      const response = await firstValueFrom(
-        this.httpService.get('http://localhost:8080/api/v1/validate-token', {
-          headers: {
-            Authorization: `Bearer ${token}`
-          }
-        })
-      );
-      interface DecodedToken {
-        userId: string;
-      }
-      const decodedToken = jwtDecode<DecodedToken>(token); 
-      const userId = decodedToken.userId;
-      console.log('Decoded token:', decodedToken);
-      this.logger.debug('Token validation response:', response.data);
+      // Token ES256 vérifié sur place, sans appel au service Java
+      request.user = (await this.verifyLocally(token)) ?? (await this.validateRemotely(token));
 
-      request.user = { ...response.data, userId };
-      
       return true;
     } catch (error: any) {
       this.logger.error('Token validation failed:', error.response?.data || error.message);
@@ -44,10 +69,95 @@ export class AuthGuard implements CanActivate {
     }
   }
 
+  private async verifyLocally(token: string): Promise<{ userId: number; email: string } | null> {
+    const [encodedHeader, encodedPayload, signature] = token.split('.');
+    if (!encodedPayload || !signature) throw new Error('Malformed token');
+
+    const header = JSON.parse(Buffer.from(encodedHeader, 'base64url').toString());
+    // Ancien token HS256 : seul le service Java détient la clé
+    if (header.alg !== 'ES256') return null;
+
+    const key = await this.getKey(header.kid);
+    if (!key) throw new Error(`Unknown signing key ${header.kid}`);
+
+    const signedData = Buffer.from(`${encodedHeader}.${encodedPayload}`);
+    if (!verify('sha256', signedData, { key, dsaEncoding: 'ieee-p1363' }, Buffer.from(signature, 'base64url')))
+      throw new Error('Invalid signature');
+
+    const claims = JSON.parse(Buffer.from(encodedPayload, 'base64url').toString());
+    if (typeof claims.exp !== 'number' || claims.exp * 1000 <= Date.now()) throw new Error('Token expired');
+    if (!isAccessToken(claims)) throw new Error('Not an access token');
+
+    // Révocations inconnues depuis trop longtemps : un token déconnecté pourrait passer
+    if (Date.now() - this.revocationsSyncedAt > REVOCATION_STALE_MS) return null;
+    if (typeof claims.jti === 'string' && this.revoked.has(claims.jti)) throw new Error('Token revoked');
+
+    return { userId: claims.userId, email: claims.sub };
+  }
+
+  private async validateRemotely(token: string) {
+    this.logger.debug('Validating token with Java service');
+    const response = await firstValueFrom(
+      this.httpService.get(`${AUTH_URL}/validate-token`, {
+        headers: {
+          Authorization: `Bearer ${token}`
+        }
+      })
+    );
+    // Le service Java renvoie directement les claims (userId, email, role)
+    return { ...response.data };
+  }
+
+  // Un seul appel en cours : un service d'auth lent ne multiplie pas les requêtes
+  pollRevocations(): Promise<void> {
+    this.revocationPoll ??= this.loadRevocations().finally(() => (this.revocationPoll = null));
+    return this.revocationPoll;
+  }
+
+  private async loadRevocations() {
+    try {
+      const since = Math.max(0, this.lastRevokedAt - REVOCATION_OVERLAP_MS);
+      const response = await firstValueFrom(this.httpService.get(`${AUTH_URL}/auth/revoked`, { params: { since } }));
+      const now = Date.now();
+
+      for (const entry of response.data) {
+        if (entry.exp > now) this.revoked.set(entry.jti, entry.exp);
+        this.lastRevokedAt = Math.max(this.lastRevokedAt, entry.revokedAt);
+      }
+      for (const [jti, exp] of this.revoked) if (exp <= now) this.revoked.delete(jti);
+      this.revocationsSyncedAt = now;
+    } catch (error: any) {
+      this.logger.warn(`Revocation feed refresh failed: ${error.message}`);
+    }
+  }
+
+  private async getKey(kid: string): Promise<KeyObject | undefined> {
+    const now = Date.now();
+    // Nouvelle clé pas encore connue : le JWKS est relu avant son max-age
+    if (now >= this.keysExpireAt || (!this.keys.has(kid) && now - this.lastFetch >= JWKS_RETRY_MS)) {
+      this.loading ??= this.loadKeys().finally(() => (this.loading = null));
+      await this.loading;
+    }
+    return this.keys.get(kid);
+  }
+
+  private async loadKeys() {
+    this.lastFetch = Date.now();
+    try {
+      const response = await firstValueFrom(this.httpService.get(`${AUTH_URL}/auth/jwks`));
+      const maxAge = /max-age=(\d+)/.exec(response.headers['cache-control'] ?? '');
+
+      this.keys = new Map(response.data.keys.map((jwk: any) => [jwk.kid, createPublicKey({ key: jwk, format: 'jwk' })]));
+      this.keysExpireAt = this.lastFetch + (maxAge ? Number(maxAge[1]) * 1000 : 0);
+    } catch (error: any) {
+      // Service d'auth injoignable : les clés déjà connues restent utilisées
+      this.logger.warn(`JWKS refresh failed: ${error.message}`);
+      this.keysExpireAt = this.lastFetch + JWKS_RETRY_MS;
+    }
+  }
+
   private extractTokenFromHeader(request: any): string | undefined {
     const [type, token] = request.headers.authorization?.split(' ') ?? [];
-    console.log('Type:', request.headers.authorization);
-;
     return type === 'Bearer' ? token : undefined;
   }
 }
@@ -57,7 +167,7 @@ export class AuthGuard implements CanActivate {
 //   async canActivate(context: ExecutionContext): Promise<boolean> {
 //     const request = context.switchToHttp().getRequest();
 //     //this.logger.debug('Mock auth guard activated');
-    
+
 //     // Simulate authenticated user
 //     request.user = {
 //       userId: "1",  // Test ID
@@ -67,4 +177,4 @@ export class AuthGuard implements CanActivate {
 //     //this.logger.debug('Added mock user to request:', request.user);
 //     return true;
 //   }
-// }
\ No newline at end of file
+// }